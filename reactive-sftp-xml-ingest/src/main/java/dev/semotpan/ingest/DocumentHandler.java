@@ -1,14 +1,16 @@
 package dev.semotpan.ingest;
 
-import com.fasterxml.jackson.dataformat.xml.XmlMapper;
+import dev.semotpan.ingest.output.DocumentWriter;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 import reactor.core.publisher.Mono;
 import reactor.core.scheduler.Schedulers;
 
-import java.io.IOException;
+import java.io.BufferedOutputStream;
+import java.io.OutputStream;
 import java.nio.file.Files;
+import java.nio.file.Path;
 import java.nio.file.Paths;
 
 @Slf4j
@@ -16,12 +18,13 @@ import java.nio.file.Paths;
 @RequiredArgsConstructor
 public final class DocumentHandler {
 
-    private final XmlMapper xmlMapper;
+    private final DocumentWriter documentWriter;
 
     public Mono<Void> ingest(XmlParseResult result) {
         log.info("Parse result document filename {}", result.filename());
         log.info("Parse result document document {}", result.document());
         log.info("Parse result document error {}", result.error());
+        log.info("Parse result document totals {}", result.totals());
 
 //        return writeToFileSystem(result);
         return Mono.empty();
@@ -29,24 +32,18 @@ public final class DocumentHandler {
 
     private Mono<Void> writeToFileSystem(XmlParseResult result) {
         return Mono.fromCallable(() -> {
-                    byte[] bytes = convertToFileContent(result); // includes Jackson serialization
-                    if (bytes.length == 0) {
+                    if (result.document() == null) {
                         log.warn("No content generated for {}. Skipping write.", result.filename());
                         return null;
                     }
-                    Files.write(Paths.get(result.filename()), bytes);
+                    Path target = Paths.get(documentWriter.format().filename(result.filename()));
+                    try (OutputStream os = new BufferedOutputStream(Files.newOutputStream(target))) {
+                        documentWriter.write(result.document(), os);
+                    }
                     return null;
                 })
                 .subscribeOn(Schedulers.boundedElastic())
+                .doOnError(e -> log.error("Failed to generate content for {}", result.filename(), e))
                 .then();
     }
-
-    private byte[] convertToFileContent(XmlParseResult result) {
-        try {
-            return xmlMapper.writeValueAsBytes(result.document());
-        } catch (IOException e) {
-            log.error("Failed to generate content for {}", result.filename(), e);
-            return new byte[0];
-        }
-    }
 }
@@ -1,10 +1,11 @@
 package dev.semotpan.ingest;
 
 import dev.semotpan.ingest.model.XmlDocument;
+import dev.semotpan.ingest.totals.ControlTotals;
 import lombok.Builder;
 
-@Builder
-public record XmlParseResult(String filename, XmlDocument document, String error) {
+@Builder(toBuilder = true)
+public record XmlParseResult(String filename, XmlDocument document, String error, ControlTotals totals) {
 
     public static XmlParseResult success(String filename, XmlDocument document) {
         return XmlParseResult.builder()
@@ -19,4 +20,13 @@ public record XmlParseResult(String filename, XmlDocument document, String error
                 .error(error)
                 .build();
     }
+
+    /**
+     * Computes control totals over the document's records, as they will be handed to {@link DocumentHandler}.
+     */
+    public XmlParseResult withTotals() {
+        return toBuilder()
+                .totals(ControlTotals.of(document))
+                .build();
+    }
 }
@@ -0,0 +1,83 @@
+package dev.semotpan.ingest.dedup;
+
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.redis.core.ReactiveStringRedisTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+
+@Slf4j
+@Configuration
+@EnableConfigurationProperties(DedupProperties.class)
+@RequiredArgsConstructor
+class DedupConfig {
+
+    private static final Duration SEED_TIMEOUT = Duration.ofMinutes(5);
+
+    private final DedupProperties dedupProperties;
+    private boolean snapshotRestored;
+
+    @Bean
+    OffHeapBloomFilter transactionIdBloomFilter() {
+        var filter = OffHeapBloomFilter.create(dedupProperties.expectedInsertions(), dedupProperties.falsePositiveProbability());
+        var snapshot = Path.of(dedupProperties.snapshotPath());
+
+        try {
+            snapshotRestored = filter.readFrom(snapshot);
+            log.info(
+                    "Transaction id Bloom filter -> {} MiB off-heap, {} hash functions, restored from {}: {}",
+                    filter.bitSize() / 8 / 1024 / 1024,
+                    filter.hashFunctions(),
+                    snapshot,
+                    snapshotRestored
+            );
+            if (!snapshotRestored && Files.exists(snapshot)) {
+                log.warn("Ignoring Bloom filter snapshot {}: written with a different size", snapshot);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to restore Bloom filter snapshot " + snapshot, e);
+        }
+
+        return filter;
+    }
+
+    @Bean
+    TransactionIdStore transactionIdStore(ReactiveStringRedisTemplate redisTemplate) {
+        return new RedisTransactionIdStore(redisTemplate, dedupProperties.redisKey());
+    }
+
+    @Bean
+    TransactionDeduplicator transactionDeduplicator(OffHeapBloomFilter transactionIdBloomFilter, TransactionIdStore transactionIdStore) {
+        var deduplicator = new TransactionDeduplicator(transactionIdBloomFilter, transactionIdStore);
+        if (!snapshotRestored) {
+            // without its bits the filter would answer "definite miss" for every id already in the store
+            log.info("Seeded Bloom filter with {} transaction ids from the id store", deduplicator.seed().block(SEED_TIMEOUT));
+        }
+        return deduplicator;
+    }
+
+    @Scheduled(fixedDelayString = "${app.dedup.snapshot-interval-ms:60000}", initialDelayString = "${app.dedup.snapshot-interval-ms:60000}")
+    void snapshot() {
+        var snapshot = Path.of(dedupProperties.snapshotPath());
+        try {
+            transactionIdBloomFilter().writeTo(snapshot);
+            log.debug("Bloom filter snapshot written to {}", snapshot);
+        } catch (IOException e) {
+            log.error("Failed to write Bloom filter snapshot {}", snapshot, e);
+        }
+    }
+
+    @PreDestroy
+    void snapshotOnShutdown() {
+        snapshot();
+    }
+}
@@ -0,0 +1,11 @@
+package dev.semotpan.ingest.dedup;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@ConfigurationProperties(prefix = "app.dedup")
+record DedupProperties(long expectedInsertions,
+                       double falsePositiveProbability,
+                       String snapshotPath,
+                       String redisKey) {
+
+}
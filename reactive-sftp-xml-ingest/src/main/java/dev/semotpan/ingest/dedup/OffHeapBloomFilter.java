@@ -0,0 +1,175 @@
+package dev.semotpan.ingest.dedup;
+
+import java.io.IOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Fixed-size Bloom filter whose bit set lives in a direct {@link ByteBuffer}, outside the Java heap.
+ * <p>
+ * Bits are set with atomic {@code OR} on 64-bit words, so {@link #put(CharSequence)} is lock-free and safe to call
+ * from concurrent parses. Keys are hashed straight from their chars, without encoding them to bytes first.
+ */
+final class OffHeapBloomFilter {
+
+    private static final VarHandle WORDS = MethodHandles.byteBufferViewVarHandle(long[].class, ByteOrder.LITTLE_ENDIAN);
+
+    private static final int SNAPSHOT_MAGIC = 0x424C4F4D; // "BLOM"
+    private static final int SNAPSHOT_VERSION = 1;
+    private static final int SNAPSHOT_HEADER_BYTES = Integer.BYTES * 3 + Long.BYTES;
+    private static final long MAX_BIT_SIZE = (long) (Integer.MAX_VALUE - 7) * Byte.SIZE;
+
+    private final ByteBuffer bits;
+    private final long bitSize;
+    private final int hashFunctions;
+
+    private OffHeapBloomFilter(long bitSize, int hashFunctions) {
+        this.bitSize = bitSize;
+        this.hashFunctions = hashFunctions;
+        this.bits = ByteBuffer.allocateDirect((int) (bitSize / Byte.SIZE)).order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    static OffHeapBloomFilter create(long expectedInsertions, double falsePositiveProbability) {
+        if (expectedInsertions <= 0) {
+            throw new IllegalArgumentException("expectedInsertions must be positive: " + expectedInsertions);
+        }
+        if (falsePositiveProbability <= 0 || falsePositiveProbability >= 1) {
+            throw new IllegalArgumentException("falsePositiveProbability must be in (0, 1): " + falsePositiveProbability);
+        }
+
+        double optimalBits = -expectedInsertions * Math.log(falsePositiveProbability) / (Math.log(2) * Math.log(2));
+        long bitSize = Math.min(MAX_BIT_SIZE, (((long) Math.ceil(optimalBits) + Long.SIZE - 1) / Long.SIZE) * Long.SIZE);
+        int hashFunctions = Math.max(1, (int) Math.round((double) bitSize / expectedInsertions * Math.log(2)));
+        return new OffHeapBloomFilter(bitSize, hashFunctions);
+    }
+
+    /**
+     * Records the key.
+     *
+     * @return {@code true} if the key was definitely not present before, {@code false} if it probably was
+     */
+    boolean put(CharSequence key) {
+        long h = fnv1a(key);
+        long h1 = mix(h);
+        long h2 = mix(h ^ 0x9E3779B97F4A7C15L) | 1;
+
+        boolean changed = false;
+        for (int i = 0; i < hashFunctions; i++) {
+            long bit = Math.floorMod(h1 + i * h2, bitSize);
+            int offset = (int) (bit >>> 6) << 3;
+            long mask = 1L << (bit & 63);
+            long previous = (long) WORDS.getAndBitwiseOr(bits, offset, mask);
+            changed |= (previous & mask) == 0;
+        }
+        return changed;
+    }
+
+    boolean mightContain(CharSequence key) {
+        long h = fnv1a(key);
+        long h1 = mix(h);
+        long h2 = mix(h ^ 0x9E3779B97F4A7C15L) | 1;
+
+        for (int i = 0; i < hashFunctions; i++) {
+            long bit = Math.floorMod(h1 + i * h2, bitSize);
+            int offset = (int) (bit >>> 6) << 3;
+            long word = (long) WORDS.getAcquire(bits, offset);
+            if ((word & (1L << (bit & 63))) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    long bitSize() {
+        return bitSize;
+    }
+
+    int hashFunctions() {
+        return hashFunctions;
+    }
+
+    /**
+     * Writes the bit set to a sibling temp file and atomically moves it over {@code path}. Concurrent puts may or may
+     * not be captured, but bits only ever go from 0 to 1, so the snapshot is always a valid, older filter.
+     */
+    void writeTo(Path path) throws IOException {
+        Path parent = path.toAbsolutePath().getParent();
+        Files.createDirectories(parent);
+        Path tmp = Files.createTempFile(parent, path.getFileName().toString(), ".tmp");
+
+        try (FileChannel channel = FileChannel.open(tmp, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer header = ByteBuffer.allocate(SNAPSHOT_HEADER_BYTES)
+                    .putInt(SNAPSHOT_MAGIC)
+                    .putInt(SNAPSHOT_VERSION)
+                    .putLong(bitSize)
+                    .putInt(hashFunctions)
+                    .flip();
+            writeFully(channel, header);
+            writeFully(channel, bits.duplicate().clear());
+            channel.force(false);
+        }
+        Files.move(tmp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Loads {@code path} into this filter.
+     *
+     * @return {@code false} if there is no snapshot or it was written with a different size
+     */
+    boolean readFrom(Path path) throws IOException {
+        if (!Files.isRegularFile(path)) {
+            return false;
+        }
+
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            ByteBuffer header = ByteBuffer.allocate(SNAPSHOT_HEADER_BYTES);
+            readFully(channel, header);
+            header.flip();
+            if (header.getInt() != SNAPSHOT_MAGIC || header.getInt() != SNAPSHOT_VERSION
+                    || header.getLong() != bitSize || header.getInt() != hashFunctions) {
+                return false;
+            }
+            readFully(channel, bits.duplicate().clear());
+            return true;
+        }
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+
+    private static void readFully(FileChannel channel, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer) < 0) {
+                throw new IOException("Truncated Bloom filter snapshot");
+            }
+        }
+    }
+
+    private static long fnv1a(CharSequence key) {
+        long h = 0xCBF29CE484222325L;
+        for (int i = 0, n = key.length(); i < n; i++) {
+            h = (h ^ key.charAt(i)) * 0x100000001B3L;
+        }
+        return h;
+    }
+
+    // MurmurHash3 fmix64 finalizer
+    private static long mix(long h) {
+        h ^= h >>> 33;
+        h *= 0xFF51AFD7ED558CCDL;
+        h ^= h >>> 33;
+        h *= 0xC4CEB9FE1A85EC53L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
@@ -0,0 +1,93 @@
+package dev.semotpan.ingest.dedup;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.redis.core.ReactiveStringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Keeps ids in a single Redis hash. Claims run as one Lua script per batch, so {@code HSETNX} over the whole batch is
+ * atomic and costs one round trip; plain saves are {@code HSET} and seeding walks the hash with {@code HSCAN}.
+ */
+@RequiredArgsConstructor
+final class RedisTransactionIdStore implements TransactionIdStore {
+
+    private static final int BATCH_SIZE = 5_000;
+
+    @SuppressWarnings("rawtypes")
+    private static final RedisScript<List> CLAIM = RedisScript.of("""
+            local existing = {}
+            for i = 1, #ARGV, 2 do
+                if redis.call('HSETNX', KEYS[1], ARGV[i], ARGV[i + 1]) == 0 then
+                    existing[#existing + 1] = ARGV[i]
+                end
+            end
+            return existing
+            """, List.class);
+
+    private final ReactiveStringRedisTemplate redisTemplate;
+    private final String key;
+
+    @Override
+    public Mono<Set<String>> claim(Map<String, String> idToFilename) {
+        if (idToFilename.isEmpty()) {
+            return Mono.just(Set.of());
+        }
+
+        List<List<String>> batches = new ArrayList<>();
+        List<String> args = new ArrayList<>();
+        for (Map.Entry<String, String> e : idToFilename.entrySet()) {
+            args.add(e.getKey());
+            args.add(e.getValue());
+            if (args.size() == BATCH_SIZE * 2) {
+                batches.add(args);
+                args = new ArrayList<>();
+            }
+        }
+        if (!args.isEmpty()) {
+            batches.add(args);
+        }
+
+        return Flux.fromIterable(batches)
+                .concatMap(batch -> redisTemplate.execute(CLAIM, List.of(key), batch))
+                .<Object>flatMapIterable(existing -> existing)
+                .map(String.class::cast)
+                .collect(Collectors.toSet());
+    }
+
+    @Override
+    public Mono<Void> saveAll(Map<String, String> idToFilename) {
+        if (idToFilename.isEmpty()) {
+            return Mono.empty();
+        }
+        return Flux.fromIterable(idToFilename.entrySet())
+                .buffer(BATCH_SIZE)
+                .concatMap(batch -> redisTemplate.<String, String>opsForHash()
+                        .putAll(key, batch.stream().collect(Collectors.toMap(Map.Entry::getKey, Map.Entry::getValue))))
+                .then();
+    }
+
+    @Override
+    public Mono<Void> release(Collection<String> ids) {
+        if (ids.isEmpty()) {
+            return Mono.empty();
+        }
+        return Flux.fromIterable(ids)
+                .buffer(BATCH_SIZE)
+                .concatMap(batch -> redisTemplate.opsForHash().remove(key, batch.toArray()))
+                .then();
+    }
+
+    @Override
+    public Flux<String> ids() {
+        return redisTemplate.<String, String>opsForHash().scan(key).map(Map.Entry::getKey);
+    }
+}
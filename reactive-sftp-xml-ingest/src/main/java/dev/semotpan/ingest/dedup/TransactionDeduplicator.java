@@ -0,0 +1,126 @@
+package dev.semotpan.ingest.dedup;
+
+import dev.semotpan.ingest.XmlParseResult;
+import dev.semotpan.ingest.model.Transactions;
+import dev.semotpan.ingest.model.Transactions.Transaction;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Function;
+
+/**
+ * Drops transactions whose id was already ingested, from an earlier file or earlier in the same file.
+ * <p>
+ * The {@link OffHeapBloomFilter} decides definite misses with no I/O; they are accepted and written back to the
+ * {@link TransactionIdStore} alongside the file. Only probable hits go to the store, which confirms them with an
+ * atomic claim. Everything written for a file is released again when the downstream ingest fails.
+ * <p>
+ * Two windows remain in which a duplicate can slip through: another instance, whose filter has not seen the id, may
+ * accept it between a miss here and its write-back; and ids written back after the last snapshot are missing from the
+ * filter after a crash. Within one instance the filter is shared, so a second file with the same id is a probable hit
+ * and is confirmed against the store.
+ */
+@Slf4j
+@RequiredArgsConstructor
+public final class TransactionDeduplicator {
+
+    private final OffHeapBloomFilter bloomFilter;
+    private final TransactionIdStore idStore;
+
+    /**
+     * Removes duplicate transactions and hands the remaining document to {@code ingest}.
+     */
+    public <T> Mono<T> deduplicate(XmlParseResult result, Function<XmlParseResult, Mono<T>> ingest) {
+        if (!(result.document() instanceof Transactions transactions) || transactions.getTransactions() == null) {
+            return ingest.apply(result);
+        }
+
+        final String filename = result.filename();
+        final List<Transaction> rows = transactions.getTransactions();
+        final boolean[] duplicate = new boolean[rows.size()];
+        final Map<String, String> misses = new HashMap<>();
+        final Map<String, String> probableHits = new HashMap<>();
+        final Map<String, Integer> firstRow = new HashMap<>();
+
+        for (int i = 0; i < rows.size(); i++) {
+            String key = dedupKey(rows.get(i));
+            if (key == null) {
+                continue;
+            }
+            if (firstRow.putIfAbsent(key, i) != null) {
+                duplicate[i] = true;
+                continue;
+            }
+            (bloomFilter.put(key) ? misses : probableHits).put(key, filename);
+        }
+
+        return Mono.zip(idStore.claim(probableHits), idStore.saveAll(misses).thenReturn(true), (existing, saved) -> existing)
+                .map(Optional::of)
+                .onErrorResume(ex -> {
+                    log.warn("Transaction id store unavailable for {}, only dropping repeats within the file: {}", filename, ex.getMessage());
+                    return Mono.just(Optional.empty());
+                })
+                // leave the Redis I/O thread before the O(n) work below and downstream
+                .publishOn(Schedulers.boundedElastic())
+                .flatMap(existing -> {
+                    if (existing.isEmpty()) {
+                        return ingest.apply(withoutDuplicates(result, rows, duplicate));
+                    }
+
+                    Set<String> recorded = new HashSet<>(misses.keySet());
+                    recorded.addAll(probableHits.keySet());
+                    for (String key : existing.get()) {
+                        duplicate[firstRow.get(key)] = true;
+                        recorded.remove(key);
+                    }
+                    log.debug("{}: {} definite misses, {} probable hits, {} confirmed", filename, misses.size(), probableHits.size(), existing.get().size());
+
+                    return ingest.apply(withoutDuplicates(result, rows, duplicate))
+                            .onErrorResume(ex -> idStore.release(recorded)
+                                    .onErrorResume(releaseEx -> {
+                                        log.error("Failed to release {} transaction ids of {}", recorded.size(), filename, releaseEx);
+                                        return Mono.empty();
+                                    })
+                                    .then(Mono.error(ex)));
+                });
+    }
+
+    /**
+     * Puts every id of the store into the Bloom filter, for a filter that starts without a snapshot.
+     *
+     * @return the number of ids added
+     */
+    public Mono<Long> seed() {
+        return idStore.ids()
+                .doOnNext(bloomFilter::put)
+                .count();
+    }
+
+    private static XmlParseResult withoutDuplicates(XmlParseResult result, List<Transaction> rows, boolean[] duplicate) {
+        List<Transaction> kept = new ArrayList<>(rows.size());
+        for (int i = 0; i < rows.size(); i++) {
+            if (!duplicate[i]) {
+                kept.add(rows.get(i));
+            }
+        }
+        if (kept.size() == rows.size()) {
+            return result;
+        }
+
+        log.info("Dropped {} duplicate transactions from {}", rows.size() - kept.size(), result.filename());
+        return XmlParseResult.success(result.filename(), Transactions.builder().transactions(kept).build());
+    }
+
+    private static String dedupKey(Transaction tx) {
+        return tx.getId() != null ? tx.getId() : tx.getReference();
+    }
+}
@@ -0,0 +1,39 @@
+package dev.semotpan.ingest.dedup;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Exact, shared record of every transaction id accepted so far. The Bloom filter answers definite misses on its own;
+ * this store confirms its probable hits and keeps the ids that seed a filter started without a snapshot.
+ */
+public interface TransactionIdStore {
+
+    /**
+     * Records every id that is not present yet and reports the ones that were, as one atomic step, so two files
+     * racing on the same id cannot both keep it.
+     *
+     * @param idToFilename ids mapped to the file they are seen in
+     * @return the subset of ids that were already recorded and must be dropped
+     */
+    Mono<Set<String>> claim(Map<String, String> idToFilename);
+
+    /**
+     * Records ids the Bloom filter has never seen, without checking them.
+     */
+    Mono<Void> saveAll(Map<String, String> idToFilename);
+
+    /**
+     * Forgets ids recorded for a file whose ingest failed, so a resend is not mistaken for a duplicate.
+     */
+    Mono<Void> release(Collection<String> ids);
+
+    /**
+     * Streams every recorded id.
+     */
+    Flux<String> ids();
+}
@@ -0,0 +1,202 @@
+package dev.semotpan.ingest.output;
+
+import dev.semotpan.ingest.model.Invoices;
+import dev.semotpan.ingest.model.Transactions;
+
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static dev.semotpan.ingest.output.BinaryFormat.*;
+
+/**
+ * Streams records back out of an {@link OutputFormat#BINARY} file without materialising the whole document.
+ * <pre>{@code
+ * try (var reader = BinaryDocumentReader.open(Files.newInputStream(path))) {
+ *     Transactions.Transaction tx;
+ *     while ((tx = reader.nextTransaction()) != null) {
+ *         ...
+ *     }
+ * }
+ * }</pre>
+ */
+public final class BinaryDocumentReader implements Closeable {
+
+    private static final Transactions.Direction[] DIRECTIONS = Transactions.Direction.values();
+
+    private final DataInputStream in;
+    private final byte type;
+    private final List<String> currencies = new ArrayList<>();
+    private final List<String> counterparties = new ArrayList<>();
+    private long read;
+    private boolean finished;
+
+    private BinaryDocumentReader(DataInputStream in, byte type) {
+        this.in = in;
+        this.type = type;
+    }
+
+    public static BinaryDocumentReader open(InputStream is) throws IOException {
+        var in = new DataInputStream(is instanceof BufferedInputStream ? is : new BufferedInputStream(is));
+        if (in.readInt() != MAGIC) {
+            throw new IOException("Not a binary document: bad magic");
+        }
+        byte version = in.readByte();
+        if (version != VERSION) {
+            throw new IOException("Unsupported binary document version " + version);
+        }
+        return new BinaryDocumentReader(in, in.readByte());
+    }
+
+    public boolean isInvoices() {
+        return type == TYPE_INVOICES;
+    }
+
+    public boolean isTransactions() {
+        return type == TYPE_TRANSACTIONS;
+    }
+
+    /**
+     * @return the next invoice, or {@code null} once all records were read
+     */
+    public Invoices.Invoice nextInvoice() throws IOException {
+        requireType(TYPE_INVOICES);
+        if (!advance()) {
+            return null;
+        }
+
+        int presence = in.readUnsignedByte();
+        var invoice = new Invoices.Invoice();
+        if ((presence & HAS_ID) != 0) {
+            invoice.setId(readString(in));
+        }
+        if ((presence & HAS_AMOUNT) != 0) {
+            invoice.setAmount(in.readDouble());
+        }
+        if ((presence & HAS_CURRENCY) != 0) {
+            invoice.setCurrency(lookup(currencies, in.readInt()));
+        }
+        return invoice;
+    }
+
+    /**
+     * @return the next transaction, or {@code null} once all records were read
+     */
+    public Transactions.Transaction nextTransaction() throws IOException {
+        requireType(TYPE_TRANSACTIONS);
+        if (!advance()) {
+            return null;
+        }
+
+        int presence = in.readUnsignedByte();
+        var tx = new Transactions.Transaction();
+        if ((presence & HAS_ID) != 0) {
+            tx.setId(readString(in));
+        }
+        if ((presence & HAS_POSTING_DATE) != 0) {
+            tx.setPostingDate(LocalDate.ofEpochDay(in.readInt()));
+        }
+        String ccy = (presence & HAS_CURRENCY) != 0 ? lookup(currencies, in.readInt()) : null;
+        BigDecimal amount = null;
+        if ((presence & HAS_AMOUNT) != 0) {
+            BigInteger unscaled;
+            if ((presence & BIG_AMOUNT) != 0) {
+                int length = in.readInt();
+                if (length <= 0) {
+                    throw new IOException("Corrupt binary document: amount length " + length);
+                }
+                byte[] bytes = new byte[length];
+                in.readFully(bytes);
+                unscaled = new BigInteger(bytes);
+            } else {
+                unscaled = BigInteger.valueOf(in.readLong());
+            }
+            amount = new BigDecimal(unscaled, in.readByte());
+        }
+        if (ccy != null || amount != null) {
+            tx.setAmount(new Transactions.Money(ccy, amount));
+        }
+        if ((presence & HAS_DIRECTION) != 0) {
+            tx.setDirection(direction(in.readUnsignedByte()));
+        }
+        if ((presence & HAS_REFERENCE) != 0) {
+            tx.setReference(readString(in));
+        }
+        if ((presence & HAS_COUNTERPARTY) != 0) {
+            tx.setCounterparty(lookup(counterparties, in.readInt()));
+        }
+        return tx;
+    }
+
+    /**
+     * Consumes dictionary entries up to the next record.
+     *
+     * @return {@code false} at the end marker
+     */
+    private boolean advance() throws IOException {
+        if (finished) {
+            return false;
+        }
+
+        while (true) {
+            byte tag = in.readByte();
+            switch (tag) {
+                case RECORD -> {
+                    read++;
+                    return true;
+                }
+                case DICTIONARY -> {
+                    byte dictionary = in.readByte();
+                    String value = readString(in);
+                    switch (dictionary) {
+                        case DICT_CURRENCY -> currencies.add(value);
+                        case DICT_COUNTERPARTY -> counterparties.add(value);
+                        default -> throw new IOException("Corrupt binary document: dictionary " + dictionary);
+                    }
+                }
+                case END -> {
+                    long expected = in.readLong();
+                    if (expected != read) {
+                        throw new EOFException("Binary document declares " + expected + " records, read " + read);
+                    }
+                    finished = true;
+                    return false;
+                }
+                default -> throw new IOException("Corrupt binary document: unknown tag " + tag);
+            }
+        }
+    }
+
+    private static String lookup(List<String> dictionary, int id) throws IOException {
+        if (id < 0 || id >= dictionary.size()) {
+            throw new IOException("Corrupt binary document: dictionary id " + id + " of " + dictionary.size());
+        }
+        return dictionary.get(id);
+    }
+
+    private static Transactions.Direction direction(int ordinal) throws IOException {
+        if (ordinal >= DIRECTIONS.length) {
+            throw new IOException("Corrupt binary document: direction " + ordinal);
+        }
+        return DIRECTIONS[ordinal];
+    }
+
+    private void requireType(byte expected) {
+        if (type != expected) {
+            throw new IllegalStateException("Binary document holds type " + type + ", not " + expected);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        in.close();
+    }
+}
@@ -0,0 +1,163 @@
+package dev.semotpan.ingest.output;
+
+import dev.semotpan.ingest.model.Invoices;
+import dev.semotpan.ingest.model.Transactions;
+import dev.semotpan.ingest.model.XmlDocument;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static dev.semotpan.ingest.output.BinaryFormat.*;
+
+/**
+ * Writes documents in the {@link BinaryFormat} layout, one record at a time.
+ */
+final class BinaryDocumentWriter implements DocumentWriter {
+
+    @Override
+    public OutputFormat format() {
+        return OutputFormat.BINARY;
+    }
+
+    @Override
+    public void write(XmlDocument document, OutputStream os) throws IOException {
+        var out = new DataOutputStream(os);
+        var encoder = new Encoder(out);
+
+        switch (document) {
+            case Invoices invoices -> encoder.invoices(nonNull(invoices.getInvoices()));
+            case Transactions transactions -> encoder.transactions(nonNull(transactions.getTransactions()));
+            default -> throw new IllegalArgumentException("Unsupported document type: " + document.getClass().getName());
+        }
+        out.flush();
+    }
+
+    private static <T> List<T> nonNull(List<T> rows) {
+        return rows == null ? List.of() : rows;
+    }
+
+    private static final class Encoder {
+
+        private final DataOutputStream out;
+        private final Map<String, Integer> currencies = new HashMap<>();
+        private final Map<String, Integer> counterparties = new HashMap<>();
+
+        Encoder(DataOutputStream out) {
+            this.out = out;
+        }
+
+        void invoices(List<Invoices.Invoice> rows) throws IOException {
+            header(TYPE_INVOICES);
+            for (Invoices.Invoice invoice : rows) {
+                int currency = invoice.getCurrency() == null ? -1 : lookup(currencies, DICT_CURRENCY, invoice.getCurrency());
+
+                int presence = (invoice.getId() != null ? HAS_ID : 0)
+                        | (invoice.getAmount() != null ? HAS_AMOUNT : 0)
+                        | (currency >= 0 ? HAS_CURRENCY : 0);
+
+                out.writeByte(RECORD);
+                out.writeByte(presence);
+                if (invoice.getId() != null) {
+                    writeString(out, invoice.getId());
+                }
+                if (invoice.getAmount() != null) {
+                    out.writeDouble(invoice.getAmount());
+                }
+                if (currency >= 0) {
+                    out.writeInt(currency);
+                }
+            }
+            footer(rows.size());
+        }
+
+        void transactions(List<Transactions.Transaction> rows) throws IOException {
+            header(TYPE_TRANSACTIONS);
+            for (Transactions.Transaction tx : rows) {
+                Transactions.Money money = tx.getAmount();
+                String ccy = money == null ? null : money.getCcy();
+                BigDecimal amount = money == null ? null : money.getValue();
+                int currency = ccy == null ? -1 : lookup(currencies, DICT_CURRENCY, ccy);
+                int counterparty = tx.getCounterparty() == null ? -1 : lookup(counterparties, DICT_COUNTERPARTY, tx.getCounterparty());
+                boolean bigAmount = amount != null && amount.unscaledValue().bitLength() > 63;
+
+                int presence = (tx.getId() != null ? HAS_ID : 0)
+                        | (tx.getPostingDate() != null ? HAS_POSTING_DATE : 0)
+                        | (currency >= 0 ? HAS_CURRENCY : 0)
+                        | (amount != null ? HAS_AMOUNT : 0)
+                        | (bigAmount ? BIG_AMOUNT : 0)
+                        | (tx.getDirection() != null ? HAS_DIRECTION : 0)
+                        | (tx.getReference() != null ? HAS_REFERENCE : 0)
+                        | (counterparty >= 0 ? HAS_COUNTERPARTY : 0);
+
+                out.writeByte(RECORD);
+                out.writeByte(presence);
+                if (tx.getId() != null) {
+                    writeString(out, tx.getId());
+                }
+                if (tx.getPostingDate() != null) {
+                    out.writeInt(Math.toIntExact(tx.getPostingDate().toEpochDay()));
+                }
+                if (currency >= 0) {
+                    out.writeInt(currency);
+                }
+                if (amount != null) {
+                    if (bigAmount) {
+                        byte[] unscaled = amount.unscaledValue().toByteArray();
+                        out.writeInt(unscaled.length);
+                        out.write(unscaled);
+                    } else {
+                        out.writeLong(amount.unscaledValue().longValue());
+                    }
+                    out.writeByte(scale(amount));
+                }
+                if (tx.getDirection() != null) {
+                    out.writeByte(tx.getDirection().ordinal());
+                }
+                if (tx.getReference() != null) {
+                    writeString(out, tx.getReference());
+                }
+                if (counterparty >= 0) {
+                    out.writeInt(counterparty);
+                }
+            }
+            footer(rows.size());
+        }
+
+        private static int scale(BigDecimal amount) throws IOException {
+            if (amount.scale() < Byte.MIN_VALUE || amount.scale() > Byte.MAX_VALUE) {
+                throw new IOException("Unsupported amount scale " + amount.scale() + " for " + amount);
+            }
+            return amount.scale();
+        }
+
+        private int lookup(Map<String, Integer> dictionary, byte dictionaryType, String value) throws IOException {
+            Integer id = dictionary.get(value);
+            if (id != null) {
+                return id;
+            }
+
+            int next = dictionary.size();
+            dictionary.put(value, next);
+            out.writeByte(DICTIONARY);
+            out.writeByte(dictionaryType);
+            writeString(out, value);
+            return next;
+        }
+
+        private void header(byte type) throws IOException {
+            out.writeInt(MAGIC);
+            out.writeByte(VERSION);
+            out.writeByte(type);
+        }
+
+        private void footer(long count) throws IOException {
+            out.writeByte(END);
+            out.writeLong(count);
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package dev.semotpan.ingest.output;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Layout of the {@link OutputFormat#BINARY} encoding, shared by {@link BinaryDocumentWriter} and
+ * {@link BinaryDocumentReader}. All numbers are big-endian; a {@code str} is an {@code i32} byte length followed by
+ * that many UTF-8 bytes, so values are not capped at the 64 KiB of {@code DataOutput#writeUTF}.
+ *
+ * <pre>
+ * file        := MAGIC VERSION type:u8 entry* END count:i64
+ * entry       := DICTIONARY dictionary:u8 value:str      -- assigns the next id of that dictionary
+ *              | RECORD record
+ * invoice     := presence:u8 [id:str] [amount:f64] [currency:i32]
+ * transaction := presence:u8 [id:str] [postingDate:i32 epoch day] [currency:i32]
+ *                [amount:i64 unscaled scale:i8 | amount:len:i32 bytes scale:i8] [direction:u8]
+ *                [reference:str] [counterparty:i32]
+ * </pre>
+ * Optional fields are only written when their presence bit is set. Currencies and counterparties are dictionary
+ * encoded: each distinct value is written once, the first time it is used, and referenced by its id afterwards.
+ */
+final class BinaryFormat {
+
+    static final int MAGIC = 0x58444F43; // "XDOC"
+    static final byte VERSION = 1;
+
+    static final byte TYPE_INVOICES = 1;
+    static final byte TYPE_TRANSACTIONS = 2;
+
+    static final byte END = 0;
+    static final byte DICTIONARY = 1;
+    static final byte RECORD = 2;
+
+    static final byte DICT_CURRENCY = 0;
+    static final byte DICT_COUNTERPARTY = 1;
+
+    static final int HAS_ID = 1;
+    static final int HAS_AMOUNT = 1 << 1;
+    static final int HAS_CURRENCY = 1 << 2;
+    static final int HAS_POSTING_DATE = 1 << 3;
+    static final int HAS_DIRECTION = 1 << 4;
+    static final int HAS_REFERENCE = 1 << 5;
+    static final int HAS_COUNTERPARTY = 1 << 6;
+    static final int BIG_AMOUNT = 1 << 7;
+
+    private BinaryFormat() {
+    }
+
+    static void writeString(DataOutput out, String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    static String readString(DataInput in) throws IOException {
+        int length = in.readInt();
+        if (length < 0) {
+            throw new IOException("Corrupt binary document: negative string length " + length);
+        }
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,16 @@
+package dev.semotpan.ingest.output;
+
+import dev.semotpan.ingest.model.XmlDocument;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+public interface DocumentWriter {
+
+    OutputFormat format();
+
+    /**
+     * Writes the document to {@code os}; the caller owns and closes the stream.
+     */
+    void write(XmlDocument document, OutputStream os) throws IOException;
+}
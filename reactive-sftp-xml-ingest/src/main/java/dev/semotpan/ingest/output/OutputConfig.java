@@ -0,0 +1,22 @@
+package dev.semotpan.ingest.output;
+
+import com.fasterxml.jackson.dataformat.xml.XmlMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Slf4j
+@Configuration
+class OutputConfig {
+
+    @Bean
+    DocumentWriter documentWriter(@Value("${app.output.format:xml}") OutputFormat format, XmlMapper xmlMapper) {
+        log.info("Creating document writer -> format: {}", format);
+
+        return switch (format) {
+            case XML -> new XmlDocumentWriter(xmlMapper);
+            case BINARY -> new BinaryDocumentWriter();
+        };
+    }
+}
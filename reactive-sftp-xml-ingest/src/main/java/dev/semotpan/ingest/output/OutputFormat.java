@@ -0,0 +1,21 @@
+package dev.semotpan.ingest.output;
+
+public enum OutputFormat {
+
+    XML(".xml"),
+    BINARY(".xdoc");
+
+    private final String extension;
+
+    OutputFormat(String extension) {
+        this.extension = extension;
+    }
+
+    /**
+     * Replaces the source file extension, e.g. {@code invoices.xml -> invoices.xdoc}.
+     */
+    public String filename(String source) {
+        int dot = source.lastIndexOf('.');
+        return (dot > 0 ? source.substring(0, dot) : source) + extension;
+    }
+}
@@ -0,0 +1,27 @@
+package dev.semotpan.ingest.output;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.dataformat.xml.XmlMapper;
+import dev.semotpan.ingest.model.XmlDocument;
+import lombok.RequiredArgsConstructor;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+@RequiredArgsConstructor
+final class XmlDocumentWriter implements DocumentWriter {
+
+    private final XmlMapper xmlMapper;
+
+    @Override
+    public OutputFormat format() {
+        return OutputFormat.XML;
+    }
+
+    @Override
+    public void write(XmlDocument document, OutputStream os) throws IOException {
+        xmlMapper.writer()
+                .without(JsonGenerator.Feature.AUTO_CLOSE_TARGET)
+                .writeValue(os, document);
+    }
+}
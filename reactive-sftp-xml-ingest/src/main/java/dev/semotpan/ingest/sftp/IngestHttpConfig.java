@@ -0,0 +1,44 @@
+package dev.semotpan.ingest.sftp;
+
+import lombok.RequiredArgsConstructor;
+import org.apache.sshd.sftp.client.SftpClient.DirEntry;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.MediaType;
+import org.springframework.integration.file.remote.session.SessionFactory;
+import org.springframework.integration.sftp.filters.SftpPersistentAcceptOnceFileListFilter;
+import org.springframework.integration.sftp.filters.SftpSimplePatternFileListFilter;
+import org.springframework.web.reactive.function.server.RouterFunction;
+import org.springframework.web.reactive.function.server.ServerResponse;
+
+import static org.springframework.web.reactive.function.server.RequestPredicates.contentType;
+import static org.springframework.web.reactive.function.server.RouterFunctions.route;
+
+@Configuration
+@RequiredArgsConstructor
+class IngestHttpConfig {
+
+    private final SftpProperties sftpProperties;
+
+    @Bean
+    XmlIngestHttpHandler xmlIngestHttpHandler(XmlReactiveSftpMessageHandler handle,
+                                              SessionFactory<DirEntry> sftpSessionFactory,
+                                              SftpSimplePatternFileListFilter sftpFilenamePatternFilter,
+                                              SftpPersistentAcceptOnceFileListFilter sftpAcceptOnceFilter) {
+        return new XmlIngestHttpHandler(
+                handle,
+                sftpSessionFactory,
+                sftpFilenamePatternFilter,
+                sftpAcceptOnceFilter,
+                sftpProperties.remoteDirectory()
+        );
+    }
+
+    @Bean
+    RouterFunction<ServerResponse> ingestRoutes(XmlIngestHttpHandler xmlIngestHttpHandler) {
+        return route()
+                .POST("/ingest/files/{filename}", xmlIngestHttpHandler::upload)
+                .POST("/ingest/notifications", contentType(MediaType.APPLICATION_JSON), xmlIngestHttpHandler::notification)
+                .build();
+    }
+}
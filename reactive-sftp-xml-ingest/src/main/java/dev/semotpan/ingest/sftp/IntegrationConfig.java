@@ -5,6 +5,7 @@ import com.fasterxml.jackson.databind.module.SimpleModule;
 import com.fasterxml.jackson.dataformat.xml.XmlMapper;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
 import dev.semotpan.ingest.DocumentHandler;
+import dev.semotpan.ingest.dedup.TransactionDeduplicator;
 import dev.semotpan.ingest.model.XmlDocument;
 import io.micrometer.tracing.Tracer;
 import lombok.RequiredArgsConstructor;
@@ -28,7 +29,6 @@ import org.springframework.integration.sftp.filters.SftpPersistentAcceptOnceFile
 import org.springframework.integration.sftp.filters.SftpSimplePatternFileListFilter;
 import org.springframework.integration.sftp.session.DefaultSftpSessionFactory;
 import org.springframework.integration.sftp.session.SftpRemoteFileTemplate;
-import org.springframework.messaging.ReactiveMessageHandler;
 import org.springframework.scheduling.annotation.EnableScheduling;
 import org.springframework.util.StringUtils;
 
@@ -95,24 +95,45 @@ class IntegrationConfig {
         return xmlMapper;
     }
 
+    @Bean
+    SftpSimplePatternFileListFilter sftpFilenamePatternFilter() {
+        return new SftpSimplePatternFileListFilter(sftpProperties.filenamePattern());
+    }
+
+    /**
+     * Shared by the poller and the push endpoint so a file claimed by one is never ingested again by the other.
+     */
+    @Bean
+    SftpPersistentAcceptOnceFileListFilter sftpAcceptOnceFilter(ConcurrentMetadataStore metadataStore) {
+        return new SftpPersistentAcceptOnceFileListFilter(metadataStore, sftpProperties.remoteDirectory());
+    }
+
+    @Bean
+    CompositeFileListFilter<DirEntry> sftpFileListFilter(SftpSimplePatternFileListFilter sftpFilenamePatternFilter,
+                                                         SftpPersistentAcceptOnceFileListFilter sftpAcceptOnceFilter) {
+        var filters = new CompositeFileListFilter<DirEntry>();
+
+        filters.addFilter(sftpFilenamePatternFilter);
+        filters.addFilter(sftpAcceptOnceFilter);
+        return filters;
+    }
+
     @Bean
     @InboundChannelAdapter(channel = "stream", poller = @Poller(fixedDelay = "${app.sftp.poll-interval-ms:1000}"))
-    MessageSource<InputStream> ftpMessageSource(ConcurrentMetadataStore metadataStore) {
+    MessageSource<InputStream> ftpMessageSource(CompositeFileListFilter<DirEntry> sftpFileListFilter) {
         var source = new org.springframework.integration.sftp.inbound.SftpStreamingMessageSource(sftpRemoteFileTemplate());
         source.setRemoteDirectory(sftpProperties.remoteDirectory());
         source.setMaxFetchSize(sftpProperties.maxFetchSize());
-        var filters = new CompositeFileListFilter<DirEntry>();
-
-        filters.addFilter(new SftpSimplePatternFileListFilter(sftpProperties.filenamePattern()));
-        filters.addFilter(new SftpPersistentAcceptOnceFileListFilter(metadataStore, sftpProperties.remoteDirectory()));
-
-        source.setFilter(filters);
+        source.setFilter(sftpFileListFilter);
         return source;
     }
 
     @Bean
     @ServiceActivator(inputChannel = "stream")
-    ReactiveMessageHandler handle(XmlMapper xmlMapper, Tracer tracer, DocumentHandler documentHandler) {
-        return new XmlReactiveSftpMessageHandler(xmlMapper, tracer, documentHandler);
+    XmlReactiveSftpMessageHandler handle(XmlMapper xmlMapper,
+                                         Tracer tracer,
+                                         TransactionDeduplicator transactionDeduplicator,
+                                         DocumentHandler documentHandler) {
+        return new XmlReactiveSftpMessageHandler(xmlMapper, tracer, transactionDeduplicator, documentHandler);
     }
 }
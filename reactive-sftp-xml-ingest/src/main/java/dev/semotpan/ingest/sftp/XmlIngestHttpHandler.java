@@ -0,0 +1,167 @@
+package dev.semotpan.ingest.sftp;
+
+import dev.semotpan.ingest.XmlParseResult;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.sshd.sftp.client.SftpClient;
+import org.apache.sshd.sftp.client.SftpClient.DirEntry;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.integration.file.FileHeaders;
+import org.springframework.integration.file.filters.FileListFilter;
+import org.springframework.integration.file.filters.ReversibleFileListFilter;
+import org.springframework.integration.file.remote.session.Session;
+import org.springframework.integration.file.remote.session.SessionFactory;
+import org.springframework.integration.support.MessageBuilder;
+import org.springframework.messaging.Message;
+import org.springframework.web.reactive.function.BodyExtractors;
+import org.springframework.web.reactive.function.server.ServerRequest;
+import org.springframework.web.reactive.function.server.ServerResponse;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.io.InputStream;
+import java.util.List;
+
+/**
+ * Push-based entry points into the same parse and {@code DocumentHandler} pipeline the SFTP poller feeds.
+ * <ul>
+ *     <li>{@code POST /ingest/files/{filename}} streams the request body straight into the parser. Uploads are not
+ *     recorded in the poller's accept-once store, so the same name can be uploaded again; transactions are still
+ *     deduplicated by id.</li>
+ *     <li>{@code POST /ingest/notifications} fetches an already uploaded file from the SFTP remote directory and claims
+ *     it in the accept-once store shared with the poller.</li>
+ * </ul>
+ * Both answer {@code 400} for names that are not a plain file name matching {@code app.sftp.filename-pattern} and
+ * {@code 422} when the file was handed to {@code DocumentHandler} as a parse failure.
+ */
+@Slf4j
+@RequiredArgsConstructor
+final class XmlIngestHttpHandler {
+
+    /**
+     * Number of request body buffers requested ahead of the parser; bounds memory per upload.
+     */
+    private static final int UPLOAD_DEMAND = 16;
+
+    private final XmlReactiveSftpMessageHandler messageHandler;
+    private final SessionFactory<DirEntry> sessionFactory;
+    private final FileListFilter<DirEntry> filenamePatternFilter;
+    private final ReversibleFileListFilter<DirEntry> acceptOnceFilter;
+    private final String remoteDirectory;
+
+    Mono<ServerResponse> upload(ServerRequest request) {
+        final String filename = request.pathVariable("filename");
+        if (!isAcceptedName(filename)) {
+            return ServerResponse.badRequest().build();
+        }
+
+        return Mono.defer(() -> {
+                    InputStream is = DataBufferUtils.subscriberInputStream(request.body(BodyExtractors.toDataBuffers()), UPLOAD_DEMAND);
+                    return messageHandler.process(toMessage(filename, is));
+                })
+                .flatMap(XmlIngestHttpHandler::toResponse);
+    }
+
+    Mono<ServerResponse> notification(ServerRequest request) {
+        return request.bodyToMono(FileReadyNotification.class)
+                .map(FileReadyNotification::filename)
+                .filter(this::isAcceptedName)
+                .flatMap(filename -> ingestRemote(filename)
+                        .flatMap(XmlIngestHttpHandler::toResponse)
+                        .switchIfEmpty(Mono.defer(() -> ServerResponse.status(HttpStatus.CONFLICT).build())))
+                .switchIfEmpty(Mono.defer(() -> ServerResponse.badRequest().build()))
+                .onErrorResume(RemoteFileNotFoundException.class, ex -> ServerResponse.notFound().build());
+    }
+
+    /**
+     * @return the ingested result, or empty if the file was already claimed by the poller or an earlier notification
+     */
+    private Mono<XmlParseResult> ingestRemote(String filename) {
+        final String path = remoteDirectory + "/" + filename;
+
+        return Mono.using(
+                        sessionFactory::getSession,
+                        session -> Mono.fromCallable(() -> claim(session, path, filename))
+                                .flatMap(entry -> read(session, path, filename)
+                                        .onErrorResume(ex -> {
+                                            log.warn("Releasing claim on {} after read failure: {}", path, ex.getMessage());
+                                            acceptOnceFilter.rollback(entry, List.of(entry));
+                                            return Mono.error(ex);
+                                        })),
+                        Session::close
+                )
+                .subscribeOn(Schedulers.boundedElastic());
+    }
+
+    /**
+     * Marks the notified file as processed in the metadata store shared with the poller.
+     *
+     * @return the claimed entry, or {@code null} if it was already claimed
+     */
+    private DirEntry claim(Session<DirEntry> session, String path, String filename) throws Exception {
+        if (!session.exists(path)) {
+            throw new RemoteFileNotFoundException(path);
+        }
+
+        SftpClient client = (SftpClient) session.getClientInstance();
+        DirEntry entry = new DirEntry(filename, filename, client.stat(path));
+        if (!acceptOnceFilter.accept(entry)) {
+            log.debug("Skipping notified file {}: already ingested", path);
+            return null;
+        }
+        return entry;
+    }
+
+    private Mono<XmlParseResult> read(Session<DirEntry> session, String path, String filename) {
+        return Mono.using(
+                () -> session.readRaw(path),
+                is -> messageHandler.process(toMessage(filename, is)),
+                is -> finalizeRaw(session, is)
+        );
+    }
+
+    private boolean isAcceptedName(String filename) {
+        return filename != null
+                && !filename.isBlank()
+                && !filename.contains("/")
+                && !filename.contains("\\")
+                && !filename.contains("..")
+                && filenamePatternFilter.accept(new DirEntry(filename, filename, new SftpClient.Attributes()));
+    }
+
+    private static Mono<ServerResponse> toResponse(XmlParseResult result) {
+        if (result.error() != null) {
+            return ServerResponse.unprocessableEntity()
+                    .contentType(MediaType.TEXT_PLAIN)
+                    .bodyValue(result.error());
+        }
+        return ServerResponse.ok().build();
+    }
+
+    private void finalizeRaw(Session<DirEntry> session, InputStream is) {
+        try {
+            is.close();
+            session.finalizeRaw();
+        } catch (Exception ignore) {
+            // ignored
+        }
+    }
+
+    private static Message<InputStream> toMessage(String filename, InputStream is) {
+        return MessageBuilder.withPayload(is)
+                .setHeader(FileHeaders.REMOTE_FILE, filename)
+                .build();
+    }
+
+    record FileReadyNotification(String filename) {
+    }
+
+    static final class RemoteFileNotFoundException extends RuntimeException {
+
+        RemoteFileNotFoundException(String path) {
+            super("Remote file not found: " + path);
+        }
+    }
+}
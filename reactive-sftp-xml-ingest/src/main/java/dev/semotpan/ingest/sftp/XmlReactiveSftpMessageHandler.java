@@ -3,6 +3,7 @@ package dev.semotpan.ingest.sftp;
 import com.fasterxml.jackson.dataformat.xml.XmlMapper;
 import dev.semotpan.ingest.DocumentHandler;
 import dev.semotpan.ingest.XmlParseResult;
+import dev.semotpan.ingest.dedup.TransactionDeduplicator;
 import dev.semotpan.ingest.model.XmlDocument;
 import io.micrometer.tracing.Span;
 import io.micrometer.tracing.Tracer;
@@ -25,10 +26,19 @@ final class XmlReactiveSftpMessageHandler implements ReactiveMessageHandler {
 
     private final XmlMapper xmlMapper;
     private final Tracer tracer;
+    private final TransactionDeduplicator transactionDeduplicator;
     private final DocumentHandler documentHandler;
 
     @Override
     public Mono<Void> handleMessage(Message<?> message) {
+        return process(message).then();
+    }
+
+    /**
+     * Same as {@link #handleMessage(Message)}, but emits the result handed to {@link DocumentHandler}, so push
+     * callers can report failures that the poller only logs.
+     */
+    Mono<XmlParseResult> process(Message<?> message) {
         final String remoteName = (String) message.getHeaders().getOrDefault(FileHeaders.REMOTE_FILE, "<unknown>");
 
         final Span span = tracer.nextSpan()
@@ -40,26 +50,30 @@ final class XmlReactiveSftpMessageHandler implements ReactiveMessageHandler {
                 .onErrorResume(ex -> {
                     tagError(span, ex);
                     log.error("SFTP ingest failed for {}: {}", remoteName, ex.getMessage(), ex);
-                    return documentHandler.ingest(XmlParseResult.failure(remoteName, ex.getMessage()));
+                    XmlParseResult failure = XmlParseResult.failure(remoteName, ex.getMessage());
+                    return documentHandler.ingest(failure).thenReturn(failure);
                 })
                 .doFinally(sig -> span.end());
     }
 
-    private Mono<Void> doHandle(Message<?> message, String remoteName, Span span) {
+    private Mono<XmlParseResult> doHandle(Message<?> message, String remoteName, Span span) {
         final Object payload = message.getPayload();
         if (!(payload instanceof InputStream inputStream)) {
             return Mono.error(new PayloadTypeException(remoteName, payload));
         }
 
         return Mono.using(
-                        () -> inputStream,
-                        is -> parse(remoteName, is, span)
-                                .timeout(PARSE_TIMEOUT)
-                                .flatMap(documentHandler::ingest)
-                                .doOnSuccess(v -> span.tag("result", "parsed")),
-                        this::safeClose
-                )
-                .then();
+                () -> inputStream,
+                is -> parse(remoteName, is, span)
+                        .timeout(PARSE_TIMEOUT)
+                        .flatMap(parsed -> transactionDeduplicator.deduplicate(parsed, deduplicated -> {
+                            XmlParseResult result = deduplicated.withTotals();
+                            span.tag("records", String.valueOf(result.totals().records()));
+                            return documentHandler.ingest(result).thenReturn(result);
+                        }))
+                        .doOnSuccess(v -> span.tag("result", "parsed")),
+                this::safeClose
+        );
     }
 
     private Mono<XmlParseResult> parse(String remoteName, InputStream is, Span span) {
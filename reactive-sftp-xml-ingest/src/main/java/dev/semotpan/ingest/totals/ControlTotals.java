@@ -0,0 +1,80 @@
+package dev.semotpan.ingest.totals;
+
+import dev.semotpan.ingest.model.Invoices;
+import dev.semotpan.ingest.model.Transactions;
+import dev.semotpan.ingest.model.XmlDocument;
+import lombok.Builder;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Per-file control totals, grouped by currency and, for transactions, by {@link Transactions.Direction}.
+ * Amounts are summed exactly: in the currency's minor units where they fit, otherwise in {@link Total#amountRemainder()}.
+ * Amounts too large or too fine to sum at bounded cost are left out and counted in {@link Total#unsummedAmounts()}.
+ */
+@Builder
+public record ControlTotals(int records, List<Total> totals) {
+
+    public static final ControlTotals EMPTY = new ControlTotals(0, List.of());
+
+    public static ControlTotals of(XmlDocument document) {
+        return switch (document) {
+            case Transactions t when t.getTransactions() != null -> ofTransactions(t.getTransactions());
+            case Invoices i when i.getInvoices() != null -> ofInvoices(i.getInvoices());
+            case null, default -> EMPTY;
+        };
+    }
+
+    private static ControlTotals ofTransactions(List<Transactions.Transaction> rows) {
+        var accumulator = new TotalsAccumulator();
+        for (Transactions.Transaction tx : rows) {
+            Transactions.Money amount = tx.getAmount();
+            accumulator.add(
+                    amount == null ? null : amount.getCcy(),
+                    tx.getDirection(),
+                    amount == null ? null : amount.getValue(),
+                    tx.getPostingDate()
+            );
+        }
+        return new ControlTotals(rows.size(), accumulator.totals());
+    }
+
+    private static ControlTotals ofInvoices(List<Invoices.Invoice> rows) {
+        var accumulator = new TotalsAccumulator();
+        for (Invoices.Invoice invoice : rows) {
+            accumulator.add(
+                    invoice.getCurrency(),
+                    null,
+                    invoice.getAmount() == null ? null : BigDecimal.valueOf(invoice.getAmount()),
+                    null
+            );
+        }
+        return new ControlTotals(rows.size(), accumulator.totals());
+    }
+
+    /**
+     * @param currency       ISO 4217 code, {@code null} when missing or malformed
+     * @param direction      {@code null} for invoices
+     * @param amountMinor    sum of amounts in minor units, e.g. cents
+     * @param fractionDigits minor unit exponent used for {@code amountMinor}
+     * @param amountRemainder exact sum of amounts finer than the minor unit or beyond the range of {@code amountMinor};
+     *                        zero for well-formed files
+     * @param unsummedAmounts number of amounts with more than 100 integer or fraction digits, left out of both sums
+     */
+    public record Total(String currency,
+                        Transactions.Direction direction,
+                        long count,
+                        long amountMinor,
+                        int fractionDigits,
+                        BigDecimal amountRemainder,
+                        long unsummedAmounts,
+                        LocalDate minPostingDate,
+                        LocalDate maxPostingDate) {
+
+        public BigDecimal amount() {
+            return BigDecimal.valueOf(amountMinor, fractionDigits).add(amountRemainder);
+        }
+    }
+}
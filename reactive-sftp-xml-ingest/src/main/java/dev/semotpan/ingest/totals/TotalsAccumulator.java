@@ -0,0 +1,224 @@
+package dev.semotpan.ingest.totals;
+
+import dev.semotpan.ingest.model.Transactions.Direction;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Currency;
+import java.util.List;
+
+/**
+ * Open-addressing map from a packed {@code (currency, direction)} int key to primitive accumulators, so adding a
+ * record never boxes or grows per-record state; only the short-lived {@link BigDecimal} scaling of its amount allocates. Currency codes are packed as three 5-bit letters; anything that is not a
+ * three-letter code shares the {@code null} currency bucket.
+ * <p>
+ * Amounts finer than the currency's minor unit, or that would overflow the {@code long} sum, are never rounded or
+ * rejected; they go to a per-slot {@link BigDecimal} remainder that is only allocated when such a row shows up.
+ * Amounts with more than {@value #MAX_EXACT_DIGITS} integer or fraction digits, such as {@code 1E+99999999}, would
+ * take unbounded time and memory to scale or add, so they are only counted.
+ */
+final class TotalsAccumulator {
+
+    private static final int NO_DIRECTION = 2;
+    private static final int DEFAULT_FRACTION_DIGITS = 2;
+    private static final int INITIAL_CAPACITY = 16;
+    private static final int MAX_LONG_DIGITS = 18;
+    private static final int MAX_EXACT_DIGITS = 100;
+
+    // slot key is packed key + 1, so 0 marks an empty slot
+    private int[] keys = new int[INITIAL_CAPACITY];
+    private long[] counts = new long[INITIAL_CAPACITY];
+    private long[] amountsMinor = new long[INITIAL_CAPACITY];
+    private long[] minEpochDays = new long[INITIAL_CAPACITY];
+    private long[] maxEpochDays = new long[INITIAL_CAPACITY];
+    private int[] fractionDigits = new int[INITIAL_CAPACITY];
+    private long[] unsummedAmounts = new long[INITIAL_CAPACITY];
+    private BigDecimal[] amountRemainders;
+    private int size;
+
+    void add(String currency, Direction direction, BigDecimal amount, LocalDate postingDate) {
+        int currencyCode = encode(currency);
+        int key = currencyCode << 2 | (direction == null ? NO_DIRECTION : direction.ordinal());
+        int slot = slot(key, currencyCode);
+
+        counts[slot]++;
+        if (amount != null) {
+            addAmount(slot, amount);
+        }
+        if (postingDate != null) {
+            long epochDay = postingDate.toEpochDay();
+            minEpochDays[slot] = Math.min(minEpochDays[slot], epochDay);
+            maxEpochDays[slot] = Math.max(maxEpochDays[slot], epochDay);
+        }
+    }
+
+    List<ControlTotals.Total> totals() {
+        List<ControlTotals.Total> totals = new ArrayList<>(size);
+        for (int slot = 0; slot < keys.length; slot++) {
+            if (keys[slot] == 0) {
+                continue;
+            }
+            int key = keys[slot] - 1;
+            int directionOrdinal = key & 3;
+            boolean dated = minEpochDays[slot] != Long.MAX_VALUE;
+            totals.add(new ControlTotals.Total(
+                    decode(key >>> 2),
+                    directionOrdinal == NO_DIRECTION ? null : Direction.values()[directionOrdinal],
+                    counts[slot],
+                    amountsMinor[slot],
+                    fractionDigits[slot],
+                    remainder(slot),
+                    unsummedAmounts[slot],
+                    dated ? LocalDate.ofEpochDay(minEpochDays[slot]) : null,
+                    dated ? LocalDate.ofEpochDay(maxEpochDays[slot]) : null
+            ));
+        }
+        totals.sort(Comparator.comparing(ControlTotals.Total::currency, Comparator.nullsLast(Comparator.naturalOrder()))
+                .thenComparing(ControlTotals.Total::direction, Comparator.nullsLast(Comparator.naturalOrder())));
+        return List.copyOf(totals);
+    }
+
+    private void addAmount(int slot, BigDecimal amount) {
+        int digits = fractionDigits[slot];
+        BigDecimal exact = amount.scale() > digits ? amount.stripTrailingZeros() : amount;
+        int integerDigits = exact.precision() - exact.scale();
+        if (integerDigits > MAX_EXACT_DIGITS || exact.scale() > MAX_EXACT_DIGITS) {
+            unsummedAmounts[slot]++;
+            return;
+        }
+        if (exact.scale() <= digits && integerDigits <= MAX_LONG_DIGITS) {
+            BigInteger minor = exact.setScale(digits).unscaledValue();
+            if (minor.bitLength() < Long.SIZE) {
+                long previous = amountsMinor[slot];
+                long value = minor.longValue();
+                long sum = previous + value;
+                if (((previous ^ sum) & (value ^ sum)) >= 0) {
+                    amountsMinor[slot] = sum;
+                    return;
+                }
+            }
+        }
+
+        if (amountRemainders == null) {
+            amountRemainders = new BigDecimal[keys.length];
+        }
+        amountRemainders[slot] = amountRemainders[slot] == null ? amount : amountRemainders[slot].add(amount);
+    }
+
+    private BigDecimal remainder(int slot) {
+        return amountRemainders == null || amountRemainders[slot] == null ? BigDecimal.ZERO : amountRemainders[slot];
+    }
+
+    private int slot(int key, int currencyCode) {
+        int mask = keys.length - 1;
+        int slot = mix(key) & mask;
+        while (keys[slot] != 0) {
+            if (keys[slot] == key + 1) {
+                return slot;
+            }
+            slot = (slot + 1) & mask;
+        }
+
+        if ((size + 1) * 2 > keys.length) {
+            grow();
+            return slot(key, currencyCode);
+        }
+
+        keys[slot] = key + 1;
+        minEpochDays[slot] = Long.MAX_VALUE;
+        maxEpochDays[slot] = Long.MIN_VALUE;
+        fractionDigits[slot] = fractionDigits(currencyCode);
+        size++;
+        return slot;
+    }
+
+    private void grow() {
+        int[] oldKeys = keys;
+        long[] oldCounts = counts;
+        long[] oldAmounts = amountsMinor;
+        long[] oldMin = minEpochDays;
+        long[] oldMax = maxEpochDays;
+        int[] oldDigits = fractionDigits;
+        long[] oldUnsummed = unsummedAmounts;
+        BigDecimal[] oldRemainders = amountRemainders;
+
+        int capacity = oldKeys.length * 2;
+        keys = new int[capacity];
+        counts = new long[capacity];
+        amountsMinor = new long[capacity];
+        minEpochDays = new long[capacity];
+        maxEpochDays = new long[capacity];
+        fractionDigits = new int[capacity];
+        unsummedAmounts = new long[capacity];
+        amountRemainders = oldRemainders == null ? null : new BigDecimal[capacity];
+
+        int mask = capacity - 1;
+        for (int old = 0; old < oldKeys.length; old++) {
+            if (oldKeys[old] == 0) {
+                continue;
+            }
+            int slot = mix(oldKeys[old] - 1) & mask;
+            while (keys[slot] != 0) {
+                slot = (slot + 1) & mask;
+            }
+            keys[slot] = oldKeys[old];
+            counts[slot] = oldCounts[old];
+            amountsMinor[slot] = oldAmounts[old];
+            minEpochDays[slot] = oldMin[old];
+            maxEpochDays[slot] = oldMax[old];
+            fractionDigits[slot] = oldDigits[old];
+            unsummedAmounts[slot] = oldUnsummed[old];
+            if (oldRemainders != null) {
+                amountRemainders[slot] = oldRemainders[old];
+            }
+        }
+    }
+
+    private static int fractionDigits(int currencyCode) {
+        String currency = decode(currencyCode);
+        if (currency == null) {
+            return DEFAULT_FRACTION_DIGITS;
+        }
+        try {
+            int digits = Currency.getInstance(currency).getDefaultFractionDigits();
+            return digits < 0 ? DEFAULT_FRACTION_DIGITS : digits;
+        } catch (IllegalArgumentException e) {
+            return DEFAULT_FRACTION_DIGITS;
+        }
+    }
+
+    private static int encode(String currency) {
+        if (currency == null || currency.length() != 3) {
+            return 0;
+        }
+        int code = 0;
+        for (int i = 0; i < 3; i++) {
+            int letter = Character.toUpperCase(currency.charAt(i)) - 'A' + 1;
+            if (letter < 1 || letter > 26) {
+                return 0;
+            }
+            code = code << 5 | letter;
+        }
+        return code;
+    }
+
+    private static String decode(int code) {
+        if (code == 0) {
+            return null;
+        }
+        char[] chars = new char[3];
+        for (int i = 2; i >= 0; i--) {
+            chars[i] = (char) ('A' - 1 + (code & 31));
+            code >>>= 5;
+        }
+        return new String(chars);
+    }
+
+    private static int mix(int key) {
+        int h = key * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+}
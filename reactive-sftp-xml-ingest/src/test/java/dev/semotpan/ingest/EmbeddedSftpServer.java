@@ -0,0 +1,64 @@
+package dev.semotpan.ingest;
+
+import org.apache.sshd.common.file.virtualfs.VirtualFileSystemFactory;
+import org.apache.sshd.server.SshServer;
+import org.apache.sshd.server.keyprovider.SimpleGeneratorHostKeyProvider;
+import org.apache.sshd.sftp.server.SftpEventListener;
+import org.apache.sshd.sftp.server.SftpSubsystemFactory;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+/**
+ * In-process Apache MINA SSHD server exposing {@code root} over SFTP with password auth, for runs without Docker.
+ */
+public final class EmbeddedSftpServer implements AutoCloseable {
+
+    private final SshServer server;
+    private final Path root;
+
+    private EmbeddedSftpServer(SshServer server, Path root) {
+        this.server = server;
+        this.root = root;
+    }
+
+    public static EmbeddedSftpServer start(Path root, String user, String password) throws IOException {
+        return start(root, user, password, new SftpEventListener() {
+        });
+    }
+
+    /**
+     * @param listener notified of SFTP operations, e.g. to timestamp when a client opens a file
+     */
+    public static EmbeddedSftpServer start(Path root, String user, String password, SftpEventListener listener) throws IOException {
+        Files.createDirectories(root);
+
+        SftpSubsystemFactory sftp = new SftpSubsystemFactory();
+        sftp.addSftpEventListener(listener);
+
+        SshServer server = SshServer.setUpDefaultServer();
+        server.setHost("localhost");
+        server.setPort(0);
+        server.setKeyPairProvider(new SimpleGeneratorHostKeyProvider(root.resolveSibling("hostkey.ser")));
+        server.setPasswordAuthenticator((u, p, session) -> user.equals(u) && password.equals(p));
+        server.setSubsystemFactories(List.of(sftp));
+        server.setFileSystemFactory(new VirtualFileSystemFactory(root));
+        server.start();
+        return new EmbeddedSftpServer(server, root);
+    }
+
+    public int port() {
+        return server.getPort();
+    }
+
+    public Path root() {
+        return root;
+    }
+
+    @Override
+    public void close() throws IOException {
+        server.stop(true);
+    }
+}
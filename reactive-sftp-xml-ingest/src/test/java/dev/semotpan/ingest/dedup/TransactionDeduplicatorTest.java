@@ -0,0 +1,202 @@
+package dev.semotpan.ingest.dedup;
+
+import dev.semotpan.ingest.XmlParseResult;
+import dev.semotpan.ingest.model.Transactions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+import reactor.test.StepVerifier;
+
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class TransactionDeduplicatorTest {
+
+    private final InMemoryTransactionIdStore idStore = new InMemoryTransactionIdStore();
+    private final TransactionDeduplicator deduplicator =
+            new TransactionDeduplicator(OffHeapBloomFilter.create(1_000, 0.01), idStore);
+
+    @Test
+    void dropsIdsSeenInEarlierFilesAndWithinTheSameFile() {
+        // Arrange
+        final XmlParseResult first = transactions("first.xml", "TX-1", "TX-2");
+        final XmlParseResult second = transactions("second.xml", "TX-2", "TX-3", "TX-3");
+
+        // Act + Assert
+        StepVerifier.create(deduplicator.deduplicate(first, Mono::just))
+                .assertNext(result -> assertThat(ids(result)).containsExactly("TX-1", "TX-2"))
+                .verifyComplete();
+        StepVerifier.create(deduplicator.deduplicate(second, Mono::just))
+                .assertNext(result -> assertThat(ids(result)).containsExactly("TX-3"))
+                .verifyComplete();
+        assertThat(idStore.ids).containsOnly(
+                Map.entry("TX-1", "first.xml"),
+                Map.entry("TX-2", "first.xml"),
+                Map.entry("TX-3", "second.xml")
+        );
+    }
+
+    @Test
+    void keepsBloomFilterFalsePositivesConfirmedNewByStore() {
+        // Arrange: every key looks like a probable hit
+        final OffHeapBloomFilter saturated = OffHeapBloomFilter.create(1, 0.5);
+        for (int i = 0; i < 1_000; i++) {
+            saturated.put("SEED-" + i);
+        }
+        final TransactionDeduplicator dedup = new TransactionDeduplicator(saturated, idStore);
+
+        // Act + Assert
+        StepVerifier.create(dedup.deduplicate(transactions("file.xml", "TX-1"), Mono::just))
+                .assertNext(result -> assertThat(ids(result)).containsExactly("TX-1"))
+                .verifyComplete();
+        assertThat(idStore.ids).containsKey("TX-1");
+    }
+
+    @Test
+    void seedsEmptyBloomFilterFromStore() {
+        // Arrange: the store already holds the id, the filter starts empty
+        idStore.ids.put("TX-1", "before-restart.xml");
+
+        // Act
+        StepVerifier.create(deduplicator.seed())
+                .expectNext(1L)
+                .verifyComplete();
+
+        // Assert
+        StepVerifier.create(deduplicator.deduplicate(transactions("file.xml", "TX-1", "TX-2"), Mono::just))
+                .assertNext(result -> assertThat(ids(result)).containsExactly("TX-2"))
+                .verifyComplete();
+    }
+
+    @Test
+    void concurrentFilesClaimProbableHitsOnce() {
+        // Arrange: every key looks like a probable hit, so both files go to the store
+        final OffHeapBloomFilter saturated = OffHeapBloomFilter.create(1, 0.5);
+        for (int i = 0; i < 1_000; i++) {
+            saturated.put("SEED-" + i);
+        }
+        final TransactionDeduplicator dedup = new TransactionDeduplicator(saturated, idStore);
+        final XmlParseResult first = transactions("first.xml", "TX-1", "TX-2");
+        final XmlParseResult second = transactions("second.xml", "TX-2", "TX-3");
+
+        // Act
+        final List<List<String>> kept = Flux.just(first, second)
+                .flatMap(file -> dedup.deduplicate(file, Mono::just)
+                        .subscribeOn(Schedulers.parallel()))
+                .map(TransactionDeduplicatorTest::ids)
+                .collectList()
+                .block();
+
+        // Assert
+        assertThat(kept).flatMap(ids -> ids).containsExactlyInAnyOrder("TX-1", "TX-2", "TX-3");
+    }
+
+    @Test
+    void dropsRepeatsWithinFileWhenStoreIsUnavailable() {
+        // Arrange
+        final TransactionIdStore failing = mock(TransactionIdStore.class);
+        when(failing.claim(any())).thenReturn(Mono.error(new IllegalStateException("redis down")));
+        when(failing.saveAll(any())).thenReturn(Mono.error(new IllegalStateException("redis down")));
+        final TransactionDeduplicator dedup = new TransactionDeduplicator(OffHeapBloomFilter.create(1_000, 0.01), failing);
+
+        // Act + Assert
+        StepVerifier.create(dedup.deduplicate(transactions("file.xml", "TX-1", "TX-2", "TX-1"), Mono::just))
+                .assertNext(result -> assertThat(ids(result)).containsExactly("TX-1", "TX-2"))
+                .verifyComplete();
+    }
+
+    @Test
+    void releasesClaimedIdsWhenIngestFails() {
+        // Arrange
+        final XmlParseResult earlier = transactions("earlier.xml", "TX-1");
+        StepVerifier.create(deduplicator.deduplicate(earlier, Mono::just)).expectNextCount(1).verifyComplete();
+        final XmlParseResult file = transactions("file.xml", "TX-1", "TX-2");
+
+        // Act
+        StepVerifier.create(deduplicator.deduplicate(file, result -> Mono.error(new IllegalStateException("ingest down"))))
+                .verifyErrorMessage("ingest down");
+
+        // Assert
+        assertThat(idStore.ids).containsOnly(Map.entry("TX-1", "earlier.xml"));
+        StepVerifier.create(deduplicator.deduplicate(file, Mono::just))
+                .assertNext(result -> assertThat(ids(result)).containsExactly("TX-2"))
+                .verifyComplete();
+    }
+
+    @Test
+    void restoresBloomFilterFromSnapshot(@TempDir Path dir) throws Exception {
+        // Arrange
+        final Path snapshot = dir.resolve("ids.bloom");
+        final OffHeapBloomFilter filter = OffHeapBloomFilter.create(10_000, 0.01);
+        for (int i = 0; i < 10_000; i++) {
+            filter.put("TX-" + i);
+        }
+
+        // Act
+        filter.writeTo(snapshot);
+        final OffHeapBloomFilter restored = OffHeapBloomFilter.create(10_000, 0.01);
+        final boolean loaded = restored.readFrom(snapshot);
+
+        // Assert
+        assertThat(loaded).isTrue();
+        for (int i = 0; i < 10_000; i++) {
+            assertThat(restored.mightContain("TX-" + i)).isTrue();
+        }
+        assertThat(OffHeapBloomFilter.create(20_000, 0.01).readFrom(snapshot)).isFalse();
+    }
+
+    private static XmlParseResult transactions(String filename, String... ids) {
+        return XmlParseResult.success(filename, Transactions.builder()
+                .transactions(Arrays.stream(ids)
+                        .map(id -> Transactions.Transaction.builder().id(id).build())
+                        .toList())
+                .build());
+    }
+
+    private static List<String> ids(XmlParseResult result) {
+        return ((Transactions) result.document()).getTransactions().stream()
+                .map(Transactions.Transaction::getId)
+                .toList();
+    }
+
+    private static final class InMemoryTransactionIdStore implements TransactionIdStore {
+
+        private final Map<String, String> ids = new ConcurrentHashMap<>();
+
+        @Override
+        public Mono<Set<String>> claim(Map<String, String> idToFilename) {
+            return Mono.fromSupplier(() -> idToFilename.entrySet().stream()
+                    .filter(e -> ids.putIfAbsent(e.getKey(), e.getValue()) != null)
+                    .map(Map.Entry::getKey)
+                    .collect(Collectors.toSet()));
+        }
+
+        @Override
+        public Mono<Void> saveAll(Map<String, String> idToFilename) {
+            return Mono.fromRunnable(() -> ids.putAll(idToFilename));
+        }
+
+        @Override
+        public Mono<Void> release(Collection<String> released) {
+            return Mono.fromRunnable(() -> released.forEach(ids::remove));
+        }
+
+        @Override
+        public Flux<String> ids() {
+            return Flux.defer(() -> Flux.fromIterable(ids.keySet()));
+        }
+    }
+}
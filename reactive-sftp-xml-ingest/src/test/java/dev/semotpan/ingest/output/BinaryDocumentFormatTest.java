@@ -0,0 +1,142 @@
+package dev.semotpan.ingest.output;
+
+import dev.semotpan.ingest.model.Invoices;
+import dev.semotpan.ingest.model.Transactions;
+import dev.semotpan.ingest.model.XmlDocument;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class BinaryDocumentFormatTest {
+
+    private final BinaryDocumentWriter writer = new BinaryDocumentWriter();
+
+    @Test
+    void roundTripsTransactions() throws IOException {
+        // Arrange
+        final List<Transactions.Transaction> rows = List.of(
+                Transactions.Transaction.builder()
+                        .id("TX-2001")
+                        .postingDate(LocalDate.parse("2025-10-31"))
+                        .amount(new Transactions.Money("EUR", new BigDecimal("1450.00")))
+                        .direction(Transactions.Direction.CRDT)
+                        .reference("INV-1001")
+                        .counterparty("Acme Ltd")
+                        .build(),
+                Transactions.Transaction.builder()
+                        .id("TX-2002")
+                        .amount(new Transactions.Money("EUR", new BigDecimal("-123456789012345678901234.5")))
+                        .direction(Transactions.Direction.DBIT)
+                        .counterparty("Acme Ltd")
+                        .build(),
+                Transactions.Transaction.builder().id("TX-2003").build()
+        );
+
+        // Act
+        final byte[] bytes = write(Transactions.builder().transactions(rows).build());
+
+        // Assert
+        final List<Transactions.Transaction> read = new ArrayList<>();
+        try (var reader = BinaryDocumentReader.open(new ByteArrayInputStream(bytes))) {
+            assertThat(reader.isTransactions()).isTrue();
+            Transactions.Transaction tx;
+            while ((tx = reader.nextTransaction()) != null) {
+                read.add(tx);
+            }
+        }
+        assertThat(read).isEqualTo(rows);
+    }
+
+    @Test
+    void roundTripsInvoices() throws IOException {
+        // Arrange
+        final List<Invoices.Invoice> rows = List.of(
+                Invoices.Invoice.builder().id("INV-5").amount(999D).currency("CHF").build(),
+                Invoices.Invoice.builder().id("INV-6").amount(0.1).currency("CHF").build(),
+                Invoices.Invoice.builder().id("INV-7").build()
+        );
+
+        // Act
+        final byte[] bytes = write(Invoices.builder().invoices(rows).build());
+
+        // Assert
+        final List<Invoices.Invoice> read = new ArrayList<>();
+        try (var reader = BinaryDocumentReader.open(new ByteArrayInputStream(bytes))) {
+            assertThat(reader.isInvoices()).isTrue();
+            Invoices.Invoice invoice;
+            while ((invoice = reader.nextInvoice()) != null) {
+                read.add(invoice);
+            }
+        }
+        assertThat(read).isEqualTo(rows);
+    }
+
+    @Test
+    void roundTripsStringsLongerThanModifiedUtf8Limit() throws IOException {
+        // Arrange
+        final String reference = "\u20AC".repeat(30_000);
+        final List<Transactions.Transaction> rows = List.of(
+                Transactions.Transaction.builder().id("TX-1").reference(reference).counterparty(reference).build()
+        );
+
+        // Act
+        final byte[] bytes = write(Transactions.builder().transactions(rows).build());
+
+        // Assert
+        try (var reader = BinaryDocumentReader.open(new ByteArrayInputStream(bytes))) {
+            assertThat(reader.nextTransaction()).isEqualTo(rows.getFirst());
+            assertThat(reader.nextTransaction()).isNull();
+        }
+    }
+
+    @Test
+    void rejectsUnknownDictionaryId() throws IOException {
+        // Arrange: one record referencing currency id 0, with its dictionary entry cut out
+        final byte[] bytes = write(Invoices.builder()
+                .invoices(List.of(Invoices.Invoice.builder().currency("CHF").build()))
+                .build());
+        final int header = Integer.BYTES + 2;
+        final int dictionaryEntry = 2 + Integer.BYTES + "CHF".length();
+        final var corrupt = new ByteArrayOutputStream();
+        corrupt.write(bytes, 0, header);
+        corrupt.write(bytes, header + dictionaryEntry, bytes.length - header - dictionaryEntry);
+
+        // Act + Assert
+        try (var reader = BinaryDocumentReader.open(new ByteArrayInputStream(corrupt.toByteArray()))) {
+            assertThatThrownBy(reader::nextInvoice)
+                    .isInstanceOf(IOException.class)
+                    .hasMessageStartingWith("Corrupt binary document");
+        }
+    }
+
+    @Test
+    void rejectsUnknownDictionaryType() throws IOException {
+        // Arrange: rewrite the currency dictionary entry's type byte
+        final byte[] bytes = write(Invoices.builder()
+                .invoices(List.of(Invoices.Invoice.builder().currency("CHF").build()))
+                .build());
+        bytes[Integer.BYTES + 3] = 7;
+
+        // Act + Assert
+        try (var reader = BinaryDocumentReader.open(new ByteArrayInputStream(bytes))) {
+            assertThatThrownBy(reader::nextInvoice)
+                    .isInstanceOf(IOException.class)
+                    .hasMessage("Corrupt binary document: dictionary 7");
+        }
+    }
+
+    private byte[] write(XmlDocument document) throws IOException {
+        var os = new ByteArrayOutputStream();
+        writer.write(document, os);
+        return os.toByteArray();
+    }
+}
@@ -0,0 +1,340 @@
+package dev.semotpan.ingest.perf;
+
+import dev.semotpan.ingest.DocumentHandler;
+import dev.semotpan.ingest.EmbeddedSftpServer;
+import dev.semotpan.ingest.XmlParseResult;
+import dev.semotpan.ingest.dedup.TransactionIdStore;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.sshd.server.session.ServerSession;
+import org.apache.sshd.sftp.server.FileHandle;
+import org.apache.sshd.sftp.server.Handle;
+import org.apache.sshd.sftp.server.SftpEventListener;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Primary;
+import org.springframework.integration.endpoint.SourcePollingChannelAdapter;
+import org.springframework.integration.metadata.ConcurrentMetadataStore;
+import org.springframework.integration.metadata.SimpleMetadataStore;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.bean.override.mockito.MockitoSpyBean;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.SplittableRandom;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+
+/**
+ * End-to-end load test of the real {@code IntegrationConfig} pipeline, with no Docker and no network: an embedded
+ * SFTP server replaces the container and in-memory stores replace Redis. Skipped unless {@code -Dperf=true}.
+ * <pre>
+ * mvn test -Dtest=PipelineThroughputHarness -Dperf=true -Dperf.files=500 -Dperf.records=2000 -Dperf.invoice-ratio=0.3 -Dperf.rate=20
+ * </pre>
+ * Files arrive open-loop at {@code -Dperf.rate} files per second, on a fixed schedule that does not wait for the
+ * pipeline; {@code 0} drops them all at once to measure saturated throughput. Two latencies are reported per file:
+ * <ul>
+ *     <li>end-to-end, from the moment it appears in the upload directory until {@link DocumentHandler} receives it,
+ *     which includes queueing behind earlier files and the poll interval ({@code -Dperf.poll-interval-ms}, one file
+ *     per poll);</li>
+ *     <li>processing, from the moment the poller opens it on the SFTP server, i.e. pipeline entry.</li>
+ * </ul>
+ */
+@Slf4j
+@Tag("perf")
+@EnabledIfSystemProperty(named = "perf", matches = "true")
+@DirtiesContext
+@ExtendWith(SpringExtension.class)
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE)
+@TestPropertySource(
+        locations = "classpath:/application-test.properties",
+        properties = {
+                "management.tracing.sampling.probability=0",
+                "logging.level.dev.semotpan.ingest.DocumentHandler=WARN"
+        }
+)
+class PipelineThroughputHarness {
+
+    private static final String USER = "perf";
+    private static final String PASS = "perf";
+    private static final String UPLOAD_DIR = "upload";
+
+    private static final int FILES = Integer.getInteger("perf.files", 200);
+    private static final int RECORDS_PER_FILE = Integer.getInteger("perf.records", 1_000);
+    private static final double INVOICE_RATIO = Double.parseDouble(System.getProperty("perf.invoice-ratio", "0.3"));
+    private static final long POLL_INTERVAL_MS = Long.getLong("perf.poll-interval-ms", 10);
+    private static final double RATE = Double.parseDouble(System.getProperty("perf.rate", "0"));
+    private static final long TIMEOUT_S = Long.getLong("perf.timeout-s", 600);
+
+    private static final String[] CURRENCIES = {"EUR", "USD", "GBP", "CHF", "JPY"};
+    private static final String[] COUNTERPARTIES = {"Acme Ltd", "StreamCo", "Globex", "Initech", "Umbrella"};
+
+    private static final Map<String, Long> OPENED_AT = new ConcurrentHashMap<>();
+
+    private static Path workDir;
+    private static EmbeddedSftpServer sftp;
+
+    @MockitoSpyBean
+    DocumentHandler documentHandler;
+
+    @Autowired
+    List<SourcePollingChannelAdapter> pollers;
+
+    @BeforeAll
+    static void startSftp() throws IOException {
+        workDir = Files.createTempDirectory("sftp-perf");
+        sftp = EmbeddedSftpServer.start(workDir.resolve("root"), USER, PASS, new SftpEventListener() {
+            @Override
+            public void open(ServerSession session, String remoteHandle, Handle localHandle) {
+                if (localHandle instanceof FileHandle) {
+                    OPENED_AT.putIfAbsent(localHandle.getFile().getFileName().toString(), System.nanoTime());
+                }
+            }
+        });
+        Files.createDirectories(sftp.root().resolve(UPLOAD_DIR));
+    }
+
+    @DynamicPropertySource
+    static void registerProperties(DynamicPropertyRegistry registry) {
+        registry.add("app.sftp.host", () -> "localhost");
+        registry.add("app.sftp.port", () -> sftp.port());
+        registry.add("app.sftp.user", () -> USER);
+        registry.add("app.sftp.password", () -> PASS);
+        registry.add("app.sftp.remote-directory", () -> UPLOAD_DIR);
+        registry.add("app.sftp.poll-interval-ms", () -> POLL_INTERVAL_MS);
+        registry.add("app.dedup.snapshot-path", () -> workDir.resolve("transaction-ids.bloom").toString());
+    }
+
+    @Test
+    void reportsPipelineThroughput() throws Exception {
+        // Arrange
+        final Map<String, Long> readyAt = new ConcurrentHashMap<>();
+        final long[] latenciesNanos = new long[FILES];
+        final long[] processingNanos = new long[FILES];
+        final AtomicInteger completed = new AtomicInteger();
+        final AtomicInteger failures = new AtomicInteger();
+        final AtomicLong records = new AtomicLong();
+        final CountDownLatch done = new CountDownLatch(FILES);
+
+        doAnswer(invocation -> {
+            XmlParseResult result = invocation.getArgument(0);
+            Long start = readyAt.get(result.filename());
+            if (start != null) {
+                long now = System.nanoTime();
+                int index = completed.getAndIncrement();
+                latenciesNanos[index] = now - start;
+                processingNanos[index] = now - OPENED_AT.getOrDefault(result.filename(), start);
+                if (result.error() != null) {
+                    failures.incrementAndGet();
+                } else if (result.totals() != null) {
+                    records.addAndGet(result.totals().records());
+                }
+                done.countDown();
+            }
+            return invocation.callRealMethod();
+        }).when(documentHandler).ingest(any());
+
+        final Path upload = sftp.root().resolve(UPLOAD_DIR);
+        final SplittableRandom random = new SplittableRandom(42);
+        // payloads are built and staged as *.part (ignored by the poller) up front, so only arrivals are timed
+        final List<String> filenames = new ArrayList<>(FILES);
+        for (int i = 0; i < FILES; i++) {
+            boolean invoices = random.nextDouble() < INVOICE_RATIO;
+            String filename = "%s-%06d.xml".formatted(invoices ? "invoices" : "transactions", i);
+            String xml = invoices ? invoicesXml(i, random) : transactionsXml(i, random);
+            Files.writeString(upload.resolve(filename + ".part"), xml, StandardCharsets.UTF_8);
+            filenames.add(filename);
+        }
+        System.gc();
+        ManagementFactory.getMemoryPoolMXBeans().forEach(MemoryPoolMXBean::resetPeakUsage);
+
+        // Act
+        final long intervalNanos = RATE > 0 ? (long) (1e9 / RATE) : 0;
+        final long startNanos = System.nanoTime();
+        for (int i = 0; i < FILES; i++) {
+            String filename = filenames.get(i);
+            long arrival = startNanos + i * intervalNanos;
+            for (long wait = arrival - System.nanoTime(); wait > 0; wait = arrival - System.nanoTime()) {
+                LockSupport.parkNanos(wait);
+            }
+            readyAt.put(filename, System.nanoTime());
+            Files.move(upload.resolve(filename + ".part"), upload.resolve(filename), StandardCopyOption.ATOMIC_MOVE);
+        }
+        final boolean finished = done.await(TIMEOUT_S, TimeUnit.SECONDS);
+        final long elapsedNanos = System.nanoTime() - startNanos;
+
+        // Assert + report
+        report(completed.get(), records.get(), elapsedNanos,
+                Arrays.copyOf(latenciesNanos, completed.get()), Arrays.copyOf(processingNanos, completed.get()));
+        assertThat(finished).as("all %d files ingested within %ds", FILES, TIMEOUT_S).isTrue();
+        assertThat(failures.get()).isZero();
+    }
+
+    private static void report(int files, long records, long elapsedNanos, long[] latencies, long[] processing) {
+        Arrays.sort(latencies);
+        Arrays.sort(processing);
+        double seconds = elapsedNanos / 1e9;
+        long peakHeap = ManagementFactory.getMemoryPoolMXBeans().stream()
+                .filter(pool -> pool.getType() == MemoryType.HEAP)
+                .mapToLong(pool -> pool.getPeakUsage().getUsed())
+                .sum();
+
+        log.info("""
+
+                        === Pipeline throughput ===
+                        files              {} of {} ({} records/file, invoice ratio {}, poll interval {} ms)
+                        arrival rate       {}
+                        elapsed            {} s
+                        files/s            {}
+                        records/s          {}
+                        end-to-end p50     {} ms
+                        end-to-end p99     {} ms
+                        end-to-end max     {} ms
+                        processing p50     {} ms
+                        processing p99     {} ms
+                        processing max     {} ms
+                        peak heap          {} MiB (sum of heap pool peaks)
+                        """,
+                files, FILES, RECORDS_PER_FILE, INVOICE_RATIO, POLL_INTERVAL_MS,
+                RATE > 0 ? RATE + " files/s" : "all at once",
+                "%.2f".formatted(seconds),
+                "%.1f".formatted(files / seconds),
+                "%.0f".formatted(records / seconds),
+                millis(percentile(latencies, 0.50)),
+                millis(percentile(latencies, 0.99)),
+                millis(max(latencies)),
+                millis(percentile(processing, 0.50)),
+                millis(percentile(processing, 0.99)),
+                millis(max(processing)),
+                peakHeap / 1024 / 1024);
+    }
+
+    private static long percentile(long[] sorted, double p) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        int index = (int) Math.ceil(p * sorted.length) - 1;
+        return sorted[Math.max(0, Math.min(index, sorted.length - 1))];
+    }
+
+    private static long max(long[] sorted) {
+        return sorted.length == 0 ? 0 : sorted[sorted.length - 1];
+    }
+
+    private static String millis(long nanos) {
+        return "%.1f".formatted(nanos / 1e6);
+    }
+
+    private static String invoicesXml(int file, SplittableRandom random) {
+        StringBuilder sb = new StringBuilder(RECORDS_PER_FILE * 110).append("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n<invoices>\n");
+        for (int r = 0; r < RECORDS_PER_FILE; r++) {
+            sb.append("  <invoice><id>INV-").append(file).append('-').append(r).append("</id>")
+                    .append("<amount>").append(random.nextInt(1, 1_000_000)).append('.').append(random.nextInt(10, 100)).append("</amount>")
+                    .append("<currency>").append(CURRENCIES[random.nextInt(CURRENCIES.length)]).append("</currency></invoice>\n");
+        }
+        return sb.append("</invoices>\n").toString();
+    }
+
+    private static String transactionsXml(int file, SplittableRandom random) {
+        StringBuilder sb = new StringBuilder(RECORDS_PER_FILE * 260).append("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n<transactions>\n");
+        for (int r = 0; r < RECORDS_PER_FILE; r++) {
+            boolean credit = random.nextBoolean();
+            sb.append("  <transaction><id>TX-").append(file).append('-').append(r).append("</id>")
+                    .append("<postingDate>2025-").append(String.format("%02d-%02d", random.nextInt(1, 13), random.nextInt(1, 29))).append("</postingDate>")
+                    .append("<amount Ccy=\"").append(CURRENCIES[random.nextInt(CURRENCIES.length)]).append("\">")
+                    .append(credit ? "" : "-").append(random.nextInt(1, 100_000)).append(".00</amount>")
+                    .append("<direction>").append(credit ? "CRDT" : "DBIT").append("</direction>")
+                    .append("<reference>REF-").append(random.nextInt(1_000_000)).append("</reference>")
+                    .append("<counterparty>").append(COUNTERPARTIES[random.nextInt(COUNTERPARTIES.length)]).append("</counterparty></transaction>\n");
+        }
+        return sb.append("</transactions>\n").toString();
+    }
+
+    @AfterEach
+    void stopPollers() {
+        pollers.forEach(SourcePollingChannelAdapter::stop);
+    }
+
+    @AfterAll
+    static void tearDown() throws IOException {
+        if (sftp != null) {
+            sftp.close();
+        }
+    }
+
+    @TestConfiguration(proxyBeanMethods = false)
+    static class InMemoryStores {
+
+        @Bean
+        @Primary
+        ConcurrentMetadataStore inMemoryMetadataStore() {
+            return new SimpleMetadataStore();
+        }
+
+        @Bean
+        @Primary
+        TransactionIdStore inMemoryTransactionIdStore() {
+            Map<String, String> ids = new ConcurrentHashMap<>();
+            return new TransactionIdStore() {
+
+                @Override
+                public Mono<Set<String>> claim(Map<String, String> idToFilename) {
+                    return Mono.fromSupplier(() -> idToFilename.entrySet().stream()
+                            .filter(e -> ids.putIfAbsent(e.getKey(), e.getValue()) != null)
+                            .map(Map.Entry::getKey)
+                            .collect(Collectors.toSet()));
+                }
+
+                @Override
+                public Mono<Void> saveAll(Map<String, String> idToFilename) {
+                    return Mono.fromRunnable(() -> ids.putAll(idToFilename));
+                }
+
+                @Override
+                public Mono<Void> release(Collection<String> released) {
+                    return Mono.fromRunnable(() -> released.forEach(ids::remove));
+                }
+
+                @Override
+                public Flux<String> ids() {
+                    return Flux.defer(() -> Flux.fromIterable(ids.keySet()));
+                }
+            };
+        }
+    }
+}
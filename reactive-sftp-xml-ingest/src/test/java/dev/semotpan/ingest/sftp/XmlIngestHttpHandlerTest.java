@@ -0,0 +1,217 @@
+package dev.semotpan.ingest.sftp;
+
+import dev.semotpan.ingest.DocumentHandler;
+import dev.semotpan.ingest.EmbeddedSftpServer;
+import dev.semotpan.ingest.XmlParseResult;
+import dev.semotpan.ingest.dedup.TransactionDeduplicator;
+import dev.semotpan.ingest.model.Invoices;
+import io.micrometer.tracing.Tracer;
+import org.apache.sshd.sftp.client.SftpClient.DirEntry;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.http.MediaType;
+import org.springframework.integration.file.remote.session.Session;
+import org.springframework.integration.file.remote.session.SessionFactory;
+import org.springframework.integration.metadata.SimpleMetadataStore;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import reactor.core.publisher.Mono;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.function.Function;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class XmlIngestHttpHandlerTest {
+
+    private static final String USER = "test";
+    private static final String PASS = "pass";
+    private static final String UPLOAD_DIR = "upload";
+    private static final String XML = """
+            <invoices>
+              <invoice>
+                <id>INV-5</id>
+                <amount>999.00</amount>
+                <currency>CHF</currency>
+              </invoice>
+            </invoices>
+            """;
+
+    @TempDir
+    static Path workDir;
+
+    private static EmbeddedSftpServer sftp;
+
+    private SftpProperties properties;
+    private IntegrationConfig config;
+    private SimpleMetadataStore metadataStore;
+    private DocumentHandler documentHandler;
+    private WebTestClient client;
+
+    @BeforeAll
+    static void startSftp() throws IOException {
+        sftp = EmbeddedSftpServer.start(workDir.resolve("root"), USER, PASS);
+        Files.createDirectories(sftp.root().resolve(UPLOAD_DIR));
+    }
+
+    @BeforeEach
+    void setUp() {
+        properties = new SftpProperties("localhost", sftp.port(), USER, PASS, null, null, UPLOAD_DIR, "*.xml", 1_000, 0);
+        config = new IntegrationConfig(properties);
+        metadataStore = new SimpleMetadataStore();
+        documentHandler = mock(DocumentHandler.class);
+        when(documentHandler.ingest(any())).thenReturn(Mono.empty());
+        client = client(config.sftpSessionFactory());
+    }
+
+    private WebTestClient client(SessionFactory<DirEntry> sessionFactory) {
+        final TransactionDeduplicator deduplicator = mock(TransactionDeduplicator.class);
+        when(deduplicator.deduplicate(any(), any())).thenAnswer(invocation ->
+                invocation.<Function<XmlParseResult, Mono<?>>>getArgument(1).apply(invocation.getArgument(0)));
+
+        final XmlIngestHttpHandler handler = new XmlIngestHttpHandler(
+                new XmlReactiveSftpMessageHandler(config.xmlMapper(), Tracer.NOOP, deduplicator, documentHandler),
+                sessionFactory,
+                config.sftpFilenamePatternFilter(),
+                config.sftpAcceptOnceFilter(metadataStore),
+                UPLOAD_DIR
+        );
+        return WebTestClient.bindToRouterFunction(new IngestHttpConfig(properties).ingestRoutes(handler)).build();
+    }
+
+    @Test
+    void uploadStreamsBodyIntoPipeline() {
+        // Act
+        client.post().uri("/ingest/files/{filename}", "invoices-upload.xml")
+                .contentType(MediaType.APPLICATION_XML)
+                .bodyValue(XML)
+                .exchange()
+                .expectStatus().isOk();
+
+        // Assert
+        verify(documentHandler).ingest(argThat(result ->
+                "invoices-upload.xml".equals(result.filename()) && result.document() instanceof Invoices));
+    }
+
+    @Test
+    void uploadAnswersUnprocessableForMalformedXml() {
+        // Act
+        client.post().uri("/ingest/files/{filename}", "orders-upload.xml")
+                .contentType(MediaType.APPLICATION_XML)
+                .bodyValue("<orders><order/></orders>")
+                .exchange()
+                .expectStatus().isEqualTo(422);
+
+        // Assert
+        verify(documentHandler).ingest(argThat(result -> result.error() != null));
+    }
+
+    @Test
+    void uploadRejectsNamesOutsideFilenamePattern() {
+        // Act
+        client.post().uri("/ingest/files/{filename}", "notes.txt")
+                .contentType(MediaType.APPLICATION_XML)
+                .bodyValue(XML)
+                .exchange()
+                .expectStatus().isBadRequest();
+
+        // Assert
+        verify(documentHandler, never()).ingest(any());
+    }
+
+    @Test
+    void notificationIngestsOnceAndSharesClaimWithPoller() throws IOException {
+        // Arrange
+        writeRemote("invoices-notified.xml", XML);
+
+        // Act + Assert
+        notify("invoices-notified.xml").expectStatus().isOk();
+        notify("invoices-notified.xml").expectStatus().isEqualTo(409);
+
+        verify(documentHandler).ingest(argThat(result -> "invoices-notified.xml".equals(result.filename())));
+        assertThat(metadataStore.get(UPLOAD_DIR + "invoices-notified.xml")).isNotNull();
+    }
+
+    @Test
+    void notificationAnswersNotFoundForMissingFile() {
+        // Act + Assert
+        notify("missing.xml").expectStatus().isNotFound();
+
+        assertThat(metadataStore.get(UPLOAD_DIR + "missing.xml")).isNull();
+    }
+
+    @Test
+    void notificationRejectsNamesOutsideFilenamePatternWithoutClaiming() throws IOException {
+        // Arrange
+        writeRemote("notes.txt", XML);
+
+        // Act + Assert
+        notify("notes.txt").expectStatus().isBadRequest();
+        notify("../notes.xml").expectStatus().isBadRequest();
+
+        assertThat(metadataStore.get(UPLOAD_DIR + "notes.txt")).isNull();
+    }
+
+    @Test
+    void notificationReleasesClaimWhenReadFails() throws IOException {
+        // Arrange
+        writeRemote("unreadable.xml", XML);
+        final SessionFactory<DirEntry> sessions = config.sftpSessionFactory();
+        client = client(() -> {
+            Session<DirEntry> session = spy(sessions.getSession());
+            try {
+                doThrow(new IOException("connection reset")).when(session).readRaw(any());
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            return session;
+        });
+
+        // Act + Assert
+        notify("unreadable.xml").expectStatus().is5xxServerError();
+
+        assertThat(metadataStore.get(UPLOAD_DIR + "unreadable.xml")).isNull();
+        verify(documentHandler, never()).ingest(any());
+    }
+
+    @Test
+    void notificationAnswersUnprocessableForMalformedXml() throws IOException {
+        // Arrange
+        writeRemote("orders-notified.xml", "<orders><order/></orders>");
+
+        // Act + Assert
+        notify("orders-notified.xml").expectStatus().isEqualTo(422);
+    }
+
+    private WebTestClient.ResponseSpec notify(String filename) {
+        return client.post().uri("/ingest/notifications")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(new XmlIngestHttpHandler.FileReadyNotification(filename))
+                .exchange();
+    }
+
+    private static void writeRemote(String filename, String xml) throws IOException {
+        Files.writeString(sftp.root().resolve(UPLOAD_DIR).resolve(filename), xml, StandardCharsets.UTF_8);
+    }
+
+    @AfterAll
+    static void tearDown() throws IOException {
+        if (sftp != null) {
+            sftp.close();
+        }
+    }
+}
@@ -0,0 +1,110 @@
+package dev.semotpan.ingest.totals;
+
+import dev.semotpan.ingest.model.Invoices;
+import dev.semotpan.ingest.model.Transactions;
+import dev.semotpan.ingest.model.Transactions.Direction;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Currency;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ControlTotalsTest {
+
+    @Test
+    void aggregatesTransactionsPerCurrencyAndDirection() {
+        // Arrange
+        final Transactions transactions = Transactions.builder()
+                .transactions(List.of(
+                        tx("EUR", "1450.00", Direction.CRDT, "2025-10-31"),
+                        tx("EUR", "50.25", Direction.CRDT, "2025-11-02"),
+                        tx("EUR", "-10.00", Direction.DBIT, "2025-11-01"),
+                        tx("USD", "-75.50", Direction.DBIT, "2025-11-01"),
+                        tx("JPY", "1200", Direction.CRDT, "2025-11-03"),
+                        tx("e$x", "1.00", Direction.CRDT, "2025-11-04")
+                ))
+                .build();
+
+        // Act
+        final ControlTotals totals = ControlTotals.of(transactions);
+
+        // Assert
+        assertThat(totals.records()).isEqualTo(6);
+        assertThat(totals.totals()).containsExactly(
+                new ControlTotals.Total("EUR", Direction.CRDT, 2, 150025, 2, BigDecimal.ZERO, 0, LocalDate.parse("2025-10-31"), LocalDate.parse("2025-11-02")),
+                new ControlTotals.Total("EUR", Direction.DBIT, 1, -1000, 2, BigDecimal.ZERO, 0, LocalDate.parse("2025-11-01"), LocalDate.parse("2025-11-01")),
+                new ControlTotals.Total("JPY", Direction.CRDT, 1, 1200, 0, BigDecimal.ZERO, 0, LocalDate.parse("2025-11-03"), LocalDate.parse("2025-11-03")),
+                new ControlTotals.Total("USD", Direction.DBIT, 1, -7550, 2, BigDecimal.ZERO, 0, LocalDate.parse("2025-11-01"), LocalDate.parse("2025-11-01")),
+                new ControlTotals.Total(null, Direction.CRDT, 1, 100, 2, BigDecimal.ZERO, 0, LocalDate.parse("2025-11-04"), LocalDate.parse("2025-11-04"))
+        );
+        assertThat(totals.totals().getFirst().amount()).isEqualByComparingTo("1500.25");
+    }
+
+    @Test
+    void aggregatesInvoicesPerCurrencyAcrossManyCurrencies() {
+        // Arrange
+        final List<Invoices.Invoice> rows = new ArrayList<>();
+        final List<Currency> currencies = Currency.getAvailableCurrencies().stream()
+                .filter(c -> c.getDefaultFractionDigits() == 2)
+                .limit(100)
+                .toList();
+        for (Currency currency : currencies) {
+            rows.add(Invoices.Invoice.builder().id("A").amount(10.10).currency(currency.getCurrencyCode()).build());
+            rows.add(Invoices.Invoice.builder().id("B").amount(0.05).currency(currency.getCurrencyCode()).build());
+        }
+
+        // Act
+        final ControlTotals totals = ControlTotals.of(Invoices.builder().invoices(rows).build());
+
+        // Assert
+        assertThat(totals.records()).isEqualTo(rows.size());
+        assertThat(totals.totals()).hasSize(currencies.size())
+                .allSatisfy(total -> {
+                    assertThat(total.direction()).isNull();
+                    assertThat(total.count()).isEqualTo(2);
+                    assertThat(total.amountMinor()).isEqualTo(1015);
+                    assertThat(total.minPostingDate()).isNull();
+                });
+    }
+
+    @Test
+    @Timeout(5)
+    void keepsSubMinorAndOverflowingAmountsExactWithoutFailing() {
+        // Arrange
+        final Transactions transactions = Transactions.builder()
+                .transactions(List.of(
+                        tx("EUR", "92233720368547758.07", Direction.CRDT, "2025-11-01"),
+                        tx("EUR", "0.01", Direction.CRDT, "2025-11-01"),
+                        tx("EUR", "10.005", Direction.CRDT, "2025-11-01"),
+                        tx("EUR", "2.500", Direction.DBIT, "2025-11-01"),
+                        tx("EUR", "1E+99999999", Direction.CRDT, "2025-11-01"),
+                        tx("EUR", "1E+30", Direction.CRDT, "2025-11-01")
+                ))
+                .build();
+
+        // Act
+        final ControlTotals totals = ControlTotals.of(transactions);
+
+        // Assert
+        final ControlTotals.Total eur = totals.totals().getFirst();
+        assertThat(eur.count()).isEqualTo(5);
+        assertThat(eur.unsummedAmounts()).isEqualTo(1);
+        assertThat(eur.amountMinor()).isEqualTo(Long.MAX_VALUE);
+        assertThat(eur.amountRemainder()).isEqualByComparingTo("1000000000000000000000000000010.015");
+        assertThat(totals.totals().get(1).amountMinor()).isEqualTo(250);
+        assertThat(eur.amount()).isEqualByComparingTo("1000000000000092233720368547768.085");
+    }
+
+    private static Transactions.Transaction tx(String ccy, String amount, Direction direction, String postingDate) {
+        return Transactions.Transaction.builder()
+                .amount(new Transactions.Money(ccy, new BigDecimal(amount)))
+                .direction(direction)
+                .postingDate(LocalDate.parse(postingDate))
+                .build();
+    }
+}